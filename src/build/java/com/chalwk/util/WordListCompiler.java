@@ -0,0 +1,146 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+import static com.chalwk.util.WordList.*;
+
+/**
+ * Compiles the plain text word list into the binary dictionary that {@link WordList} memory-maps at runtime.
+ * <p>
+ * This is a build tool, not part of the bot: it lives outside the main sources and is run from source by the JDK's
+ * launcher during the Maven {@code process-classes} phase, with the compiled classes on its classpath for the format
+ * constants of {@link WordList}.
+ * <p>
+ * The layout of the dictionary, all integers big-endian:
+ * <pre>
+ * int    magic        {@link WordList#MAGIC}
+ * int    version      {@link WordList#VERSION}
+ * int    wordCount
+ * int    minLength
+ * int    maxLength
+ * int[]  buckets      (maxLength - minLength + 2) entries; words of length L have indices buckets[L - minLength] until buckets[L - minLength + 1]
+ * int[]  offsets      (wordCount + 1) entries; word i occupies bytes offsets[i] until offsets[i + 1] of the data section
+ * byte[] data         the US-ASCII characters of every word, sorted by length and then alphabetically
+ * </pre>
+ */
+public class WordListCompiler {
+
+    /**
+     * Compiles a word list.
+     *
+     * @param args the path of the plain text word list and the path of the dictionary to write
+     * @throws IOException if the word list can't be read or the dictionary can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: WordListCompiler <words.txt> <words.dat>");
+        }
+        Path source = Paths.get(args[0]);
+        Path target = Paths.get(args[1]);
+
+        TreeSet<String> words = readWords(source);
+        if (words.isEmpty()) {
+            throw new IllegalStateException("No valid words in " + source);
+        }
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try (OutputStream out = Files.newOutputStream(target)) {
+            write(words, out);
+        }
+        System.out.println("Compiled " + words.size() + " words from " + source + " into " + target);
+    }
+
+    private static TreeSet<String> readWords(Path source) throws IOException {
+        TreeSet<String> words = new TreeSet<>(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                for (String word : line.trim().split("\\s+")) {
+                    if (word.isEmpty()) {
+                        continue;
+                    }
+                    word = word.toLowerCase();
+                    if (isValid(word)) {
+                        words.add(word);
+                    } else {
+                        System.out.println("Skipping invalid word on line " + lineNumber + ": " + word);
+                    }
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Checks that a word only consists of lower case letters and inner hyphens, and fits the game's position masks.
+     *
+     * @param word the word to check
+     * @return true if the word can be played, false otherwise
+     */
+    private static boolean isValid(String word) {
+        int length = word.length();
+        if (length < MIN_WORD_LENGTH || length > MAX_WORD_LENGTH) {
+            return false;
+        }
+        if (word.charAt(0) == '-' || word.charAt(length - 1) == '-') {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if ((c < 'a' || c > 'z') && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void write(TreeSet<String> words, OutputStream target) throws IOException {
+        int minLength = words.first().length();
+        int maxLength = words.last().length();
+
+        int[] buckets = new int[maxLength - minLength + 2];
+        int[] offsets = new int[words.size() + 1];
+        int index = 0;
+        int offset = 0;
+        for (String word : words) {
+            buckets[word.length() - minLength + 1]++;
+            offsets[index++] = offset;
+            offset += word.length();
+        }
+        offsets[index] = offset;
+        for (int i = 1; i < buckets.length; i++) {
+            buckets[i] += buckets[i - 1];
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(words.size());
+        out.writeInt(minLength);
+        out.writeInt(maxLength);
+        for (int start : buckets) {
+            out.writeInt(start);
+        }
+        for (int start : offsets) {
+            out.writeInt(start);
+        }
+        for (String word : words) {
+            out.writeBytes(word);
+        }
+        out.flush();
+    }
+}
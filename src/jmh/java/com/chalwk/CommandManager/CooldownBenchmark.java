@@ -0,0 +1,42 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cooldown check made before every command, spread over a population of users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CooldownBenchmark {
+
+    @Param({"1000", "100000"})
+    public int users;
+
+    private CommandCooldownManager cooldowns;
+
+    @Setup
+    public void setUp() {
+        cooldowns = new CommandCooldownManager();
+        cooldowns.setCooldownDuration(0, CommandCooldownManager.DEFAULT_COOLDOWN_SECONDS);
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return cooldowns.tryAcquire(1 + ThreadLocalRandom.current().nextInt(users), 0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long tryAcquireContended() {
+        return cooldowns.tryAcquire(1 + ThreadLocalRandom.current().nextInt(users), 0);
+    }
+}
@@ -0,0 +1,40 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import com.chalwk.util.WordList;
+
+/**
+ * Creates games with a word of a chosen length, without a Discord interaction.
+ */
+final class BenchmarkGames {
+
+    static {
+        WordList.load();
+    }
+
+    private BenchmarkGames() {
+    }
+
+    /**
+     * Creates a running game, as if it had been recovered from the journal.
+     *
+     * @param wordLength  the length of the word to guess
+     * @param gameManager the game manager the game belongs to, or null if the game never ends
+     * @return the game
+     */
+    static Game create(int wordLength, GameManager gameManager) {
+        String word = WordList.getRandomWord(wordLength);
+        if (word == null) {
+            throw new IllegalArgumentException("The dictionary has no words of length " + wordLength);
+        }
+        GameJournal.GameRecord record = new GameJournal.GameRecord();
+        record.gameID = 1;
+        record.word = word;
+        record.startMillis = System.currentTimeMillis();
+        record.invitingPlayer = new Player(1, "inviting", "<@1>");
+        record.invitedPlayer = new Player(2, "invited", "<@2>");
+        record.invitingPlayersTurn = true;
+        return new Game(record, gameManager);
+    }
+}
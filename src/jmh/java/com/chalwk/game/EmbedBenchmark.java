@@ -0,0 +1,40 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the game embed sent after every turn. Run with {@code -prof gc} to see how much of it is
+ * allocation; everything but the embed and its field list is precomputed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmbedBenchmark {
+
+    @Param({"4", "8", "12"})
+    public int wordLength;
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.create(wordLength, null);
+        HangmanEngine engine = game.getEngine();
+        engine.applyGuess(String.valueOf(game.getWordToGuess().charAt(0)));
+        engine.applyGuess("q");
+        game.onLettersGuessed(engine.getGuessedLetters());
+    }
+
+    @Benchmark
+    public MessageEmbed createGameEmbed() {
+        return Game.createGameEmbed(game);
+    }
+}
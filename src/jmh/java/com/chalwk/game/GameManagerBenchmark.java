@@ -0,0 +1,88 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import com.chalwk.bot.BotInitializer;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the full lifecycle of a game through the GameManager (invite, accept, end) from several threads at once,
+ * next to a number of games that stay active for the whole run. JDA is replaced by stubs, so this covers the maps,
+ * the state transitions, game setup and journaling but no REST traffic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameManagerBenchmark {
+
+    private static final long CHANNEL_ID = 1;
+    private static final AtomicLong NEXT_USER_ID = new AtomicLong(1);
+
+    @Param({"10", "10000"})
+    public int activeGames;
+
+    private GameManager gameManager;
+    private SlashCommandInteractionEvent event;
+
+    /**
+     * Creates a user with a new ID. Unlike {@link Stubs#user(long)}, the stubs aren't cached, so the users the run
+     * goes through can be collected.
+     */
+    private static User createUser() {
+        long id = NEXT_USER_ID.getAndIncrement();
+        return Stubs.of(User.class, Map.of(
+                "getIdLong", id,
+                "getName", "player" + id,
+                "getAsMention", "<@" + id + ">"));
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("hangman.data.dir", Files.createTempDirectory("hangman-benchmark").toString());
+        BotInitializer.shardManager = Stubs.of(ShardManager.class, Map.of());
+        gameManager = new GameManager();
+        event = Stubs.command(0, CHANNEL_ID);
+        for (int i = 0; i < activeGames; i++) {
+            User invited = createUser();
+            gameManager.invitePlayer(createUser(), invited, 0, event);
+            gameManager.acceptInvite(invited.getIdLong(), event);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void inviteAcceptEnd(Players players) {
+        gameManager.invitePlayer(players.inviting, players.invited, 0, event);
+        gameManager.acceptInvite(players.invited.getIdLong(), event);
+        Game game = gameManager.getGame(players.invited.getIdLong());
+        game.endGame(game.getInvitingPlayer(), null);
+    }
+
+    /**
+     * The two players each benchmark thread plays its games with.
+     */
+    @State(Scope.Thread)
+    public static class Players {
+
+        private User inviting;
+        private User invited;
+
+        @Setup
+        public void setUp() {
+            inviting = createUser();
+            invited = createUser();
+        }
+    }
+}
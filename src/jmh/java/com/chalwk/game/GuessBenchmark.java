@@ -0,0 +1,78 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the guess path: applying a letter or word to the engine, rendering the guessed letters and reading the
+ * guess box. Run with {@code -prof gc} to check that applying a guess allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuessBenchmark {
+
+    private static final String[] LETTERS = new String[Guess.ALPHABET_SIZE];
+
+    static {
+        for (int i = 0; i < LETTERS.length; i++) {
+            LETTERS[i] = String.valueOf((char) ('a' + i));
+        }
+    }
+
+    @Param({"4", "8", "12"})
+    public int wordLength;
+
+    private Game game;
+    private HangmanEngine engine;
+    private String wrongWord;
+    private int wordLetters;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.create(wordLength, null);
+        String word = game.getWordToGuess();
+        for (char c : word.toCharArray()) {
+            wordLetters |= 1 << (c - 'a');
+        }
+        wrongWord = word.substring(1) + word.charAt(0);
+        if (wrongWord.equals(word)) {
+            wrongWord = word.substring(1) + (word.charAt(0) == 'z' ? 'a' : 'z');
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newEngine() {
+        // The first letter of the word is never guessed and an iteration can't make Integer.MAX_VALUE mistakes,
+        // so the game never ends.
+        engine = new HangmanEngine(game.getWordToGuess(), Integer.MAX_VALUE, true);
+    }
+
+    @Benchmark
+    public HangmanEngine.Outcome applyLetter() {
+        String letter = LETTERS[next++ % LETTERS.length];
+        return letter.charAt(0) == engine.getWord().charAt(0) ? HangmanEngine.Outcome.OVER : engine.applyGuess(letter);
+    }
+
+    @Benchmark
+    public HangmanEngine.Outcome applyWord() {
+        return engine.applyGuess(wrongWord);
+    }
+
+    @Benchmark
+    public String showGuesses() {
+        return Guess.showGuesses(wordLetters);
+    }
+
+    @Benchmark
+    public String formatGuessBox() {
+        return Guess.formatGuessBox(game);
+    }
+}
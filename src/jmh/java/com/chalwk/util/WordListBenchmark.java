@@ -0,0 +1,45 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures picking a word from the memory-mapped dictionary, at random or dealt from a guild's deck.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordListBenchmark {
+
+    private static final long GUILD_ID = 1;
+    private static final long CHANNEL_ID = 2;
+
+    @Param({"4", "8", "12"})
+    public int wordLength;
+
+    @Setup
+    public void setUp() {
+        WordList.load();
+    }
+
+    @Benchmark
+    public String getRandomWord() {
+        return WordList.getRandomWord();
+    }
+
+    @Benchmark
+    public String getRandomWordOfLength() {
+        return WordList.getRandomWord(wordLength);
+    }
+
+    @Benchmark
+    public String dealWord() {
+        return WordDealer.getShared().deal(GUILD_ID, CHANNEL_ID);
+    }
+}
@@ -2,119 +2,194 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.CommandManager;
 
-import net.dv8tion.jda.api.entities.User;
+import com.chalwk.util.TimingWheel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Manages command cooldowns by storing and checking command usage timestamps for each user and command.
+ * Manages command cooldowns for every command of the bot in one place.
+ * <p>
+ * Cooldowns are keyed by (user ID, command ordinal) and stored as primitive expiry timestamps in lock-striped
+ * open-addressing tables, so checking a cooldown doesn't allocate. Expired entries are reused by later inserts and
+ * purged by a periodic sweep, so memory only grows with the number of users on cooldown right now.
  */
 public class CommandCooldownManager {
 
     /**
      * Default cooldown duration for commands, in seconds.
      */
-    private static final long COOLDOWN_DURATION_SECONDS = 5;
+    public static final long DEFAULT_COOLDOWN_SECONDS = 5;
 
-    /**
-     * A map containing user IDs as keys and another map for each user with command names as keys and timestamps as values.
-     */
-    private final ConcurrentMap<String, Map<String, Instant>> commandUserCooldowns = new ConcurrentHashMap<>();
+    private static final int SEGMENT_COUNT = 16;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+    private static final long EMPTY = 0L;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
 
     /**
-     * Checks if a specific command is on cooldown for the given user.
-     *
-     * @param commandName the name of the command to check
-     * @param user        the user executing the command
-     * @return true if the command is not on cooldown, false otherwise
+     * Cooldown durations in nanoseconds, indexed by command ordinal.
      */
-    public boolean isOnCooldown(String commandName, User user) {
-        return !checkCooldown(commandName, user);
+    private volatile long[] durations = new long[0];
+
+    public CommandCooldownManager() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+        scheduleSweep();
+    }
+
+    private static long hash(long userID, int ordinal) {
+        long h = (userID ^ ((long) ordinal << 56)) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
     }
 
     /**
-     * Sets a command on cooldown for the given user by updating their timestamp.
+     * Sets the cooldown duration of a command.
      *
-     * @param commandName the name of the command to set on cooldown
-     * @param user        the user executing the command
+     * @param ordinal the command ordinal
+     * @param seconds the cooldown duration, in seconds
      */
-    public void setCooldown(String commandName, User user) {
-        Map<String, Instant> userCommandCooldowns = commandUserCooldowns.computeIfAbsent(user.getId(), k -> new ConcurrentHashMap<>());
-        userCommandCooldowns.put(commandName, Instant.now());
+    public synchronized void setCooldownDuration(int ordinal, long seconds) {
+        long[] updated = Arrays.copyOf(durations, Math.max(durations.length, ordinal + 1));
+        updated[ordinal] = TimeUnit.SECONDS.toNanos(seconds);
+        durations = updated;
     }
 
     /**
-     * Checks if the given command is on cooldown for the specified user by comparing their last execution timestamp with
-     * the current time.
+     * Checks if a command is on cooldown for a user and, if it isn't, puts it on cooldown in the same step.
      *
-     * @param commandName the name of the command to check
-     * @param user        the user executing the command
-     * @return true if the command is on cooldown, false otherwise
+     * @param userID  the ID of the user executing the command
+     * @param ordinal the command ordinal
+     * @return the remaining cooldown in nanoseconds if the command is on cooldown, or 0 if the user may run it
      */
-    private boolean checkCooldown(String commandName, User user) {
-        Map<String, Instant> userCommandCooldowns = commandUserCooldowns.get(user.getId());
-        if (userCommandCooldowns == null) {
-            return false;
-        }
-
-        Instant lastExecutionTime = userCommandCooldowns.get(commandName);
-        if (lastExecutionTime == null) {
-            return false;
+    public long tryAcquire(long userID, int ordinal) {
+        long duration = ordinal < durations.length ? durations[ordinal] : 0;
+        if (duration <= 0) {
+            return 0;
         }
-
-        long elapsedTime = Duration.between(lastExecutionTime, Instant.now()).getSeconds();
-        return elapsedTime >= getCooldownDuration();
+        long hash = hash(userID, ordinal);
+        return segments[(int) (hash >>> 60)].tryAcquire(userID, ordinal, hash, System.nanoTime(), duration);
     }
 
     /**
-     * Handles a cooldown error by sending a message to the user and setting the command on cooldown.
+     * Handles a cooldown error by telling the user how long they have to wait.
      *
-     * @param event the event containing the command and user
+     * @param event          the event containing the command and user
+     * @param remainingNanos the remaining cooldown
      */
-    public void handleCooldownError(SlashCommandInteractionEvent event) {
-        String commandName = event.getName();
-        User user = event.getUser();
-        Map<String, Instant> userCommandCooldowns = commandUserCooldowns.get(user.getId());
-        Instant lastExecutionTime = userCommandCooldowns.get(commandName);
-        long elapsedTime = Duration.between(lastExecutionTime, Instant.now()).getSeconds();
-        long remainingTime = getCooldownDuration() - elapsedTime;
-        if (remainingTime > 0) {
-            event.reply(String.format("Cooldown in progress. Please wait %d seconds before using the command again.", remainingTime))
-                    .setEphemeral(true).queue();
-        }
+    public void handleCooldownError(SlashCommandInteractionEvent event, long remainingNanos) {
+        long remainingSeconds = Math.max(1, (remainingNanos + 999_999_999L) / 1_000_000_000L);
+        event.reply(String.format("Cooldown in progress. Please wait %d seconds before using the command again.", remainingSeconds))
+                .setEphemeral(true).queue();
     }
 
     /**
-     * Checks if a command is on cooldown for the given user and handles cooldown errors if necessary.
+     * Gets the number of cooldown entries currently held, including expired ones not swept yet.
      *
-     * @param event the event containing the command and user
-     * @return true if the command is on cooldown and an error has been handled, false otherwise
+     * @return the number of entries
      */
-    public boolean isOnCooldown(SlashCommandInteractionEvent event) {
-        String commandName = event.getName();
-        User user = event.getUser();
-        Map<String, Instant> userCommandCooldowns = commandUserCooldowns.get(user.getId());
-        if (userCommandCooldowns == null || !userCommandCooldowns.containsKey(commandName)) {
-            return false;
-        }
-        if (isOnCooldown(commandName, user)) {
-            handleCooldownError(event);
-            return true;
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
         }
-        return false;
+        return size;
+    }
+
+    private void scheduleSweep() {
+        TimingWheel.getShared().schedule(() -> {
+            long now = System.nanoTime();
+            for (Segment segment : segments) {
+                segment.sweep(now);
+            }
+            scheduleSweep();
+        }, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
-     * Gets the cooldown duration, in seconds, for commands.
-     *
-     * @return the cooldown duration
+     * One stripe of the cooldown table. Slots whose expiry has passed act as tombstones: lookups probe past them
+     * and inserts reuse them, and the sweep drops them by rehashing the live entries.
      */
-    public long getCooldownDuration() {
-        return COOLDOWN_DURATION_SECONDS;
+    private static final class Segment {
+
+        private long[] users = new long[INITIAL_CAPACITY];
+        private int[] ordinals = new int[INITIAL_CAPACITY];
+        private long[] expiries = new long[INITIAL_CAPACITY];
+        private volatile int size;
+
+        private synchronized long tryAcquire(long userID, int ordinal, long hash, long now, long duration) {
+            int mask = users.length - 1;
+            int index = (int) hash & mask;
+            int reusable = -1;
+            while (users[index] != EMPTY) {
+                if (users[index] == userID && ordinals[index] == ordinal) {
+                    long remaining = expiries[index] - now;
+                    if (remaining > 0) {
+                        return remaining;
+                    }
+                    expiries[index] = now + duration;
+                    return 0;
+                }
+                if (reusable < 0 && expiries[index] - now <= 0) {
+                    reusable = index;
+                }
+                index = (index + 1) & mask;
+            }
+
+            if (reusable >= 0) {
+                index = reusable;
+            } else {
+                size++;
+            }
+            users[index] = userID;
+            ordinals[index] = ordinal;
+            expiries[index] = now + duration;
+            if (size * 4 > users.length * 3) {
+                rehash(now, users.length * 2);
+            }
+            return 0;
+        }
+
+        private synchronized void sweep(long now) {
+            if (size > 0) {
+                rehash(now, users.length);
+            }
+        }
+
+        private void rehash(long now, int capacity) {
+            long[] oldUsers = users;
+            int[] oldOrdinals = ordinals;
+            long[] oldExpiries = expiries;
+            int live = 0;
+            for (int i = 0; i < oldUsers.length; i++) {
+                if (oldUsers[i] != EMPTY && oldExpiries[i] - now > 0) {
+                    live++;
+                }
+            }
+            // Shrink back once a burst of users has expired, but never below the initial capacity.
+            while (capacity > INITIAL_CAPACITY && live * 4 < capacity) {
+                capacity >>>= 1;
+            }
+
+            users = new long[capacity];
+            ordinals = new int[capacity];
+            expiries = new long[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldUsers.length; i++) {
+                if (oldUsers[i] != EMPTY && oldExpiries[i] - now > 0) {
+                    int index = (int) hash(oldUsers[i], oldOrdinals[i]) & mask;
+                    while (users[index] != EMPTY) {
+                        index = (index + 1) & mask;
+                    }
+                    users[index] = oldUsers[i];
+                    ordinals[index] = oldOrdinals[i];
+                    expiries[index] = oldExpiries[i];
+                }
+            }
+            size = live;
+        }
     }
-}
\ No newline at end of file
+}
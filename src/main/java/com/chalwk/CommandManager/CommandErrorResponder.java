@@ -0,0 +1,45 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+
+/**
+ * Answers interactions that could not be handled, so the user sees an error instead of "The application did not respond".
+ */
+public class CommandErrorResponder {
+
+    private static final String UNKNOWN_COMMAND_MESSAGE = "## Unknown command.";
+    private static final String FAILURE_MESSAGE = "## Something went wrong while running this command. Please try again later.";
+
+    /**
+     * Responds to an interaction for a command path that has no route.
+     *
+     * @param event the interaction
+     */
+    public void unknownCommand(SlashCommandInteractionEvent event) {
+        Logger.warning("No route for command /{}", event.getFullCommandName());
+        respond(event, UNKNOWN_COMMAND_MESSAGE);
+    }
+
+    /**
+     * Responds to an interaction whose command threw.
+     *
+     * @param event the interaction
+     * @param route the route that was dispatched to
+     * @param error the error the command threw
+     */
+    public void commandFailed(SlashCommandInteractionEvent event, CommandRoute route, Throwable error) {
+        Logger.severe("Command /{} failed for user {}: {}", route.getPath(), event.getUser().getId(), error, error);
+        respond(event, FAILURE_MESSAGE);
+    }
+
+    private void respond(SlashCommandInteractionEvent event, String message) {
+        if (event.isAcknowledged()) {
+            event.getHook().sendMessage(message).setEphemeral(true).queue();
+        } else {
+            event.reply(message).setEphemeral(true).queue();
+        }
+    }
+}
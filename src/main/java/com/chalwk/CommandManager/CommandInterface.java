@@ -4,6 +4,7 @@ package com.chalwk.CommandManager;
 
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 
 import java.io.IOException;
 import java.util.List;
@@ -34,6 +35,26 @@ public interface CommandInterface {
      */
     List<OptionData> getOptions();
 
+    /**
+     * Returns the subcommands of the command. Each subcommand gets its own entry in the routing table,
+     * all of them dispatching to this command.
+     *
+     * @return A list of SubcommandData objects, empty if the command has none.
+     */
+    default List<SubcommandData> getSubcommands() {
+        return List.of();
+    }
+
+    /**
+     * Returns the cooldown between two uses of the command by the same user.
+     * Can be overridden at runtime with the {@code hangman.cooldown.<name>} system property.
+     *
+     * @return The cooldown duration, in seconds.
+     */
+    default long getCooldownSeconds() {
+        return CommandCooldownManager.DEFAULT_COOLDOWN_SECONDS;
+    }
+
     /**
      * Executes the command with the given event.
      *
@@ -2,68 +2,211 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.CommandManager;
 
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A listener class for registering and handling commands in the Virtual Pets game project.
  * It extends JDA's ListenerAdapter class and overrides its methods to manage command execution.
+ * <p>
+ * Commands are frozen into an immutable routing table keyed by their full command path as they are added,
+ * so dispatching an interaction is a single map lookup.
  */
 public class CommandListener extends ListenerAdapter {
 
+    private static final String GLOBAL_SCOPE = "global";
+    private static final boolean GUILD_SCOPE = "guild".equalsIgnoreCase(System.getProperty("hangman.commands.scope"));
+
     /**
      * A list of CommandInterface implementations representing available commands.
      */
-    private final List<CommandInterface> commands = new ArrayList<>();
+    private volatile List<CommandInterface> commands = List.of();
+
+    /**
+     * The routing table, mapping full command paths such as {@code invite} or {@code settings layout} to their routes.
+     */
+    private volatile Map<String, CommandRoute> routes = Map.of();
+
+    /**
+     * Answers interactions that have no route or whose command failed.
+     */
+    private final CommandErrorResponder errorResponder = new CommandErrorResponder();
+
+    /**
+     * The hashes of the command sets already registered with Discord.
+     */
+    private final CommandRegistrationCache registrationCache = new CommandRegistrationCache();
+
+    /**
+     * The cooldowns of every command, keyed by user ID and command ordinal.
+     */
+    private final CommandCooldownManager cooldowns = new CommandCooldownManager();
 
     /**
-     * Registers all available commands in all guilds upon JDA's ready event.
+     * Registers all available commands upon JDA's ready event, with one bulk update per scope.
+     * By default the commands are registered globally, once, from the first shard; setting the
+     * {@code hangman.commands.scope} system property to {@code guild} registers them per guild instead.
+     * Commands the other mode registered are removed from the scopes the registration cache still lists them
+     * under, so they don't show up twice; scopes the bot never registered in cost no requests at all.
      *
      * @param event The ReadyEvent object containing JDA's initialization details.
      */
     @Override
     public void onReady(@NotNull ReadyEvent event) {
-        for (Guild guild : event.getJDA().getGuilds()) {
-            for (CommandInterface command : commands) {
-                guild.upsertCommand(command.getName(), command.getDescription()).addOptions(command.getOptions()).queue();
+        JDA jda = event.getJDA();
+        List<CommandData> definitions = buildCommandData();
+
+        for (Guild guild : jda.getGuilds()) {
+            syncCommands(guild.getId(), guild.retrieveCommands(), guild.updateCommands(), GUILD_SCOPE ? definitions : List.of());
+        }
+        if (jda.getShardInfo().getShardId() == 0) {
+            syncCommands(GLOBAL_SCOPE, jda.retrieveCommands(), jda.updateCommands(), GUILD_SCOPE ? List.of() : definitions);
+        }
+    }
+
+    /**
+     * Registers the commands in a guild the bot has just joined when commands are registered per guild.
+     * Globally registered commands already reach the guild, so there is nothing to do otherwise.
+     *
+     * @param event The GuildJoinEvent object containing the guild.
+     */
+    @Override
+    public void onGuildJoin(@NotNull GuildJoinEvent event) {
+        if (GUILD_SCOPE) {
+            Guild guild = event.getGuild();
+            syncCommands(guild.getId(), guild.retrieveCommands(), guild.updateCommands(), buildCommandData());
+        }
+    }
+
+    /**
+     * Makes the commands registered in a scope match the given definitions. A scope whose definitions have been
+     * registered before is only checked against the commands Discord has, since they may have been removed or
+     * changed by another deployment of the bot since. A scope is only emptied if the cache lists commands in it.
+     */
+    private void syncCommands(String scope, RestAction<List<Command>> retrieval, CommandListUpdateAction update, List<CommandData> definitions) {
+        if (definitions.isEmpty()) {
+            if (registrationCache.hasRegistered(scope)) {
+                update.queue(
+                        removed -> registrationCache.markRemoved(scope),
+                        error -> Logger.warning("Failed to remove the commands of {}: {}", scope, error.getMessage()));
             }
+            return;
+        }
+        String hash = CommandRegistrationCache.hash(definitions);
+        if (!registrationCache.isRegistered(scope, hash)) {
+            updateCommands(scope, update, definitions, hash);
+            return;
         }
+        retrieval.queue(registered -> {
+            if (!hash.equals(CommandRegistrationCache.hashRegistered(registered))) {
+                updateCommands(scope, update, definitions, hash);
+            }
+        }, error -> Logger.warning("Failed to retrieve the commands of {}: {}", scope, error.getMessage()));
+    }
+
+    private void updateCommands(String scope, CommandListUpdateAction update, List<CommandData> definitions, String hash) {
+        update.addCommands(definitions).queue(
+                registered -> registrationCache.markRegistered(scope, hash),
+                error -> Logger.warning("Failed to register commands for {}: {}", scope, error.getMessage()));
+    }
+
+    private List<CommandData> buildCommandData() {
+        List<CommandData> definitions = new ArrayList<>();
+        for (CommandInterface command : commands) {
+            definitions.add(Commands.slash(command.getName(), command.getDescription())
+                    .addOptions(command.getOptions())
+                    .addSubcommands(command.getSubcommands()));
+        }
+        return definitions;
     }
 
     /**
-     * Executes the appropriate command based on the given slash command interaction event.
+     * Routes the slash command interaction event to its command, timing the execution.
+     * Commands on cooldown for the user are rejected before they run.
+     * Interactions without a route and commands that throw are handed to the error responder.
      *
      * @param event The SlashCommandInteractionEvent object containing command event details.
-     * @throws IOException if an error occurs during command execution.
      */
     @Override
     public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent event) {
-        for (CommandInterface command : commands) {
-            String cmd = event.getName();
-            if (cmd.equals(command.getName())) {
-                try {
-                    command.execute(event);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-                return;
-            }
+        CommandRoute route = routes.get(event.getFullCommandName());
+        if (route == null) {
+            errorResponder.unknownCommand(event);
+            return;
+        }
+
+        long remaining = cooldowns.tryAcquire(event.getUser().getIdLong(), route.getOrdinal());
+        if (remaining > 0) {
+            cooldowns.handleCooldownError(event, remaining);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            route.getCommand().execute(event);
+        } catch (Exception e) {
+            failed = true;
+            errorResponder.commandFailed(event, route, e);
+        } finally {
+            route.record(System.nanoTime() - start, failed);
         }
     }
 
     /**
-     * Adds a new command to the list of available commands.
+     * Adds a new command and rebuilds the routing table with an entry for the command itself,
+     * or for each of its subcommands if it has any.
      *
      * @param command The CommandInterface instance representing the new command.
      */
-    public void add(CommandInterface command) {
-        commands.add(command);
+    public synchronized void add(CommandInterface command) {
+        int ordinal = commands.size();
+        cooldowns.setCooldownDuration(ordinal, Long.getLong("hangman.cooldown." + command.getName(), command.getCooldownSeconds()));
+        Map<String, CommandRoute> table = new HashMap<>(routes);
+        List<SubcommandData> subcommands = command.getSubcommands();
+        if (subcommands.isEmpty()) {
+            register(table, command.getName(), command, ordinal);
+        }
+        for (SubcommandData subcommand : subcommands) {
+            register(table, command.getName() + " " + subcommand.getName(), command, ordinal);
+        }
+
+        List<CommandInterface> list = new ArrayList<>(commands);
+        list.add(command);
+        commands = List.copyOf(list);
+        routes = Map.copyOf(table);
+    }
+
+    /**
+     * Gets every route of the routing table.
+     *
+     * @return the routes
+     */
+    public Collection<CommandRoute> getRoutes() {
+        return routes.values();
+    }
+
+    private static void register(Map<String, CommandRoute> table, String path, CommandInterface command, int ordinal) {
+        if (table.putIfAbsent(path, new CommandRoute(path, command, ordinal)) != null) {
+            throw new IllegalStateException("Duplicate command route: /" + path);
+        }
     }
-}
\ No newline at end of file
+}
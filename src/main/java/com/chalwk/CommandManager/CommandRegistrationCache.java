@@ -0,0 +1,183 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import com.chalwk.util.FileIO;
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Remembers a content hash of the command set last registered with Discord for each scope (global or one guild),
+ * persisted in the data directory, so unchanged command definitions are not uploaded again on restart.
+ */
+public class CommandRegistrationCache {
+
+    private static final String FILE_NAME = "commands.properties";
+    private static final String[] RANGE_KEYS = {"min_value", "max_value", "min_length", "max_length"};
+
+    private final Properties hashes = new Properties();
+    private Path file;
+
+    public CommandRegistrationCache() {
+        try {
+            file = FileIO.getDataDirectory().resolve(FILE_NAME);
+            if (Files.exists(file)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    hashes.load(in);
+                }
+            }
+        } catch (IOException e) {
+            Logger.warning("Failed to load command registration cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Computes a content hash of a command set. The hash doesn't depend on the order the commands were added in.
+     * <p>
+     * Only what the bot defines goes into the hash: each command's type, name and description, and its option
+     * tree. Fields Discord fills in on its own, such as default permissions, contexts, integration types, the nsfw
+     * flag and localizations, are left out, so the commands Discord returns hash the same as the definitions they
+     * were registered from.
+     *
+     * @param commands the command definitions
+     * @return the hex encoded SHA-256 hash of the definitions
+     */
+    public static String hash(List<CommandData> commands) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            commands.stream()
+                    .sorted(Comparator.comparing(CommandData::getName))
+                    .forEach(command -> {
+                        StringBuilder projection = new StringBuilder();
+                        project(command.toData(), projection);
+                        digest.update(projection.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                    });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the content hash of the commands registered with Discord, comparable to the {@link #hash} of the
+     * definitions they were registered from.
+     *
+     * @param commands the commands retrieved from Discord
+     * @return the hex encoded SHA-256 hash of the commands
+     */
+    public static String hashRegistered(List<Command> commands) {
+        List<CommandData> definitions = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            definitions.add(CommandData.fromCommand(command));
+        }
+        return hash(definitions);
+    }
+
+    /**
+     * Appends a command or option to a projection, with the defaults of missing fields filled in so an absent field
+     * and one sent with its default value project the same.
+     */
+    private static void project(DataObject data, StringBuilder out) {
+        out.append('{').append(data.getInt("type", 1))
+                .append('|').append(data.getString("name", ""))
+                .append('|').append(data.getString("description", ""))
+                .append('|').append(data.getBoolean("required", false))
+                .append('|').append(data.getBoolean("autocomplete", false));
+        for (String key : RANGE_KEYS) {
+            out.append('|').append(data.isNull(key) ? "" : data.get(key).toString());
+        }
+        out.append("|channels");
+        List<Integer> channelTypes = new ArrayList<>();
+        DataArray types = data.optArray("channel_types").orElseGet(DataArray::empty);
+        for (int i = 0; i < types.length(); i++) {
+            channelTypes.add(types.getInt(i));
+        }
+        channelTypes.sort(null);
+        out.append(channelTypes);
+        out.append("|choices");
+        DataArray choices = data.optArray("choices").orElseGet(DataArray::empty);
+        for (int i = 0; i < choices.length(); i++) {
+            DataObject choice = choices.getObject(i);
+            out.append('[').append(choice.getString("name")).append('=').append(choice.get("value")).append(']');
+        }
+        out.append("|options");
+        DataArray options = data.optArray("options").orElseGet(DataArray::empty);
+        for (int i = 0; i < options.length(); i++) {
+            project(options.getObject(i), out);
+        }
+        out.append('}');
+    }
+
+    /**
+     * Checks if a command set has already been registered in a scope.
+     *
+     * @param scope the registration scope, {@code global} or a guild ID
+     * @param hash  the hash of the command set
+     * @return true if the same command set was registered last time, false otherwise
+     */
+    public synchronized boolean isRegistered(String scope, String hash) {
+        return hash.equals(hashes.getProperty(scope));
+    }
+
+    /**
+     * Checks if any command set has been registered in a scope and not removed since.
+     *
+     * @param scope the registration scope, {@code global} or a guild ID
+     * @return true if the scope may still hold commands this bot registered, false otherwise
+     */
+    public synchronized boolean hasRegistered(String scope) {
+        return hashes.containsKey(scope);
+    }
+
+    /**
+     * Records that a command set has been registered in a scope and persists the cache.
+     *
+     * @param scope the registration scope, {@code global} or a guild ID
+     * @param hash  the hash of the command set
+     */
+    public synchronized void markRegistered(String scope, String hash) {
+        hashes.setProperty(scope, hash);
+        save();
+    }
+
+    /**
+     * Records that the commands of a scope have been removed and persists the cache.
+     *
+     * @param scope the registration scope, {@code global} or a guild ID
+     */
+    public synchronized void markRemoved(String scope) {
+        if (hashes.remove(scope) != null) {
+            save();
+        }
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            hashes.store(out, "Hashes of the slash commands registered with Discord");
+            FileIO.writeAtomically(file, out.toByteArray());
+        } catch (IOException e) {
+            Logger.warning("Failed to save command registration cache: {}", e.getMessage());
+        }
+    }
+}
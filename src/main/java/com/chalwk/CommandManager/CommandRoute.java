@@ -0,0 +1,91 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import com.chalwk.metrics.BotMetrics;
+import com.chalwk.metrics.Histogram;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An entry of the command routing table: the command that handles one full command path, such as
+ * {@code channel} or {@code settings layout}, along with timing statistics for that path.
+ */
+public final class CommandRoute {
+
+    private final String path;
+    private final CommandInterface command;
+    private final int ordinal;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final Histogram durations;
+
+    CommandRoute(String path, CommandInterface command, int ordinal) {
+        this.path = path;
+        this.command = command;
+        this.ordinal = ordinal;
+        this.durations = BotMetrics.commandDuration(path);
+    }
+
+    /**
+     * Gets the full command path this route handles, as reported by {@code getFullCommandName()}.
+     *
+     * @return the command path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the command this route dispatches to.
+     *
+     * @return the command
+     */
+    public CommandInterface getCommand() {
+        return command;
+    }
+
+    /**
+     * Gets the position of the command in registration order, shared by all routes of the same command.
+     *
+     * @return the command ordinal
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Records the handling time of one invocation.
+     *
+     * @param nanos  the time spent handling the interaction
+     * @param failed whether the command threw
+     */
+    void record(long nanos, boolean failed) {
+        invocations.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        durations.record(nanos);
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+}
@@ -5,8 +5,12 @@ package com.chalwk.Listeners;
 
 import com.chalwk.game.Game;
 import com.chalwk.game.GameManager;
-import net.dv8tion.jda.api.EmbedBuilder;
+import com.chalwk.metrics.BotMetrics;
+import com.chalwk.util.MessageDeleteBatcher;
+import com.chalwk.util.Settings;
+import com.chalwk.util.WordDealer;
 import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
 import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
@@ -16,8 +20,6 @@ import org.slf4j.LoggerFactory;
 
 import static com.chalwk.bot.BotInitializer.getGameManager;
 import static com.chalwk.game.Game.createGameEmbed;
-import static com.chalwk.game.Guess.formatGuessBox;
-import static com.chalwk.game.Guess.getGuess;
 
 public class EventListeners extends ListenerAdapter {
 
@@ -39,68 +41,49 @@ public class EventListeners extends ListenerAdapter {
         logger.info(GAME_READY_MESSAGE);
     }
 
+    @Override
+    public void onGuildLeave(@NotNull GuildLeaveEvent event) {
+        WordDealer.getShared().discardGuildDeck(event.getGuild().getIdLong());
+    }
+
     @Override
     public void onMessageReceived(@NotNull MessageReceivedEvent event) {
+        if (Settings.useComponentGuesses()) return;
+
         User player = event.getAuthor();
         if (player.isBot()) return;
 
+        long playerID = player.getIdLong();
         GameManager gameManager = getGameManager();
-        if (!gameManager.isInGame(player)) return;
-
-        Game game = gameManager.getGame(player);
-        if (!game.isPlayer(player)) return;
-        if (notYourTurn(event, game, player)) return;
-
-        handlePlayerInput(event, game, player);
+        Game game = gameManager.getGame(playerID);
+        if (game == null || !game.isPlayer(playerID)) return;
+        if (event.getChannel().getIdLong() != game.getChannelID()) return;
+
+        long received = System.nanoTime();
+        game.post(() -> {
+            if (game.isEnded() || notYourTurn(event, game, playerID)) return;
+            handlePlayerInput(event, game);
+            BotMetrics.MESSAGE_GUESS.recordSince(received);
+        });
     }
 
-    private void handlePlayerInput(@NotNull MessageReceivedEvent event, Game game, User player) {
-        String word = game.getWordToGuess();
+    private void handlePlayerInput(@NotNull MessageReceivedEvent event, Game game) {
         String input = event.getMessage().getContentRaw().toLowerCase();
+        if (input.isEmpty()) return;
 
-        if (input.length() > 1) {
-            if (input.contentEquals(word)) {
-                game.endGame(player, null);
-                return;
-            } else {
-                game.mistakes++;
-            }
-        } else if (!getGuess(input, game)) {
-            game.mistakes++;
+        deleteMessage(event);
+        if (game.playTurn(input)) {
+            game.editEmbed(createGameEmbed(game));
         }
-
-        if (game.mistakes >= game.getMaxMistakes()) {
-            event.getMessage().delete().queue();
-            game.endGame(player, "Nobody. You lost! The word was: " + word);
-            return;
-        }
-
-        String guessBox = formatGuessBox(game);
-        if (word.length() == game.correctGuesses) {
-            event.getMessage().delete().queue();
-            game.endGame(player, null);
-            return;
-        }
-
-        game.setWhosTurn();
-        updateEmbed(game, event, guessBox);
     }
 
-    private void updateEmbed(Game game, MessageReceivedEvent event, String guesses) {
-        event.getMessage().delete().queue();
-        EmbedBuilder embed = createGameEmbed(game, guesses);
-        event.getChannel()
-                .retrieveMessageById(game.getEmbedID())
-                .queue(
-                        message -> message.editMessageEmbeds(embed.build()).queue(),
-                        throwable -> logger.error("Failed to update embed", throwable)
-                );
+    private void deleteMessage(MessageReceivedEvent event) {
+        MessageDeleteBatcher.getShared().delete(event.getGuildChannel(), event.getMessageIdLong());
     }
 
-    private boolean notYourTurn(@NotNull MessageReceivedEvent event, Game game, User player) {
-        User whosTurn = game.getWhosTurn();
-        if (!player.equals(whosTurn)) {
-            event.getMessage().delete().queue();
+    private boolean notYourTurn(@NotNull MessageReceivedEvent event, Game game, long playerID) {
+        if (playerID != game.getWhosTurn().id()) {
+            deleteMessage(event);
             return true;
         }
         return false;
@@ -0,0 +1,133 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.Listeners;
+
+import com.chalwk.game.Game;
+import com.chalwk.game.GuessComponents;
+import com.chalwk.metrics.BotMetrics;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.callbacks.IDeferrableCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.interactions.modals.ModalMapping;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+import static com.chalwk.bot.BotInitializer.getGameManager;
+import static com.chalwk.game.Game.createGameEmbed;
+
+/**
+ * Handles guesses made through the components attached to the game embed. Each guess is answered by editing
+ * the game message through the interaction, so no message has to be read or deleted.
+ * <p>
+ * Discord drops an interaction that isn't acknowledged within three seconds, however long the game's mailbox is.
+ * Guesses are therefore acknowledged on the event thread, and only the game logic is posted to the mailbox, which
+ * then edits the message through the interaction hook.
+ */
+public class GuessComponentListener extends ListenerAdapter {
+
+    @Override
+    public void onStringSelectInteraction(@NotNull StringSelectInteractionEvent event) {
+        String componentID = event.getComponentId();
+        if (!componentID.startsWith(GuessComponents.LETTERS_PREFIX)) return;
+
+        Game game = findGame(event, componentID);
+        if (game == null) return;
+
+        long received = System.nanoTime();
+        String letter = event.getValues().get(0);
+        event.deferEdit().queue();
+        game.post(() -> {
+            if (isPlayersTurn(event, game)) {
+                playTurn(event.getHook(), game, letter);
+                BotMetrics.COMPONENT_GUESS.recordSince(received);
+            }
+        });
+    }
+
+    @Override
+    public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
+        String componentID = event.getComponentId();
+        if (!componentID.startsWith(GuessComponents.WORD_BUTTON_PREFIX)) return;
+
+        Game game = findGame(event, componentID);
+        if (game == null) return;
+
+        // A modal can't be deferred, so it is opened right away. Whether the game is still running and whose turn
+        // it is can only be read from the mailbox, so those are checked when the word is submitted.
+        event.replyModal(GuessComponents.createWordModal(game.getGameID())).queue();
+    }
+
+    @Override
+    public void onModalInteraction(@NotNull ModalInteractionEvent event) {
+        String modalID = event.getModalId();
+        if (!modalID.startsWith(GuessComponents.WORD_MODAL_PREFIX)) return;
+
+        Game game = findGame(event, modalID);
+        if (game == null) return;
+
+        ModalMapping word = event.getValue(GuessComponents.WORD_INPUT_ID);
+        String input = word == null ? "" : word.getAsString().trim().toLowerCase();
+        if (input.isEmpty()) {
+            event.reply("Please enter a word.").setEphemeral(true).queue();
+            return;
+        }
+        long received = System.nanoTime();
+        event.deferEdit().queue();
+        game.post(() -> {
+            if (isPlayersTurn(event, game)) {
+                playTurn(event.getHook(), game, input);
+                BotMetrics.COMPONENT_GUESS.recordSince(received);
+            }
+        });
+    }
+
+    /**
+     * Finds the game a component belongs to, provided the user is playing it.
+     * Otherwise the user is told why their guess doesn't count.
+     *
+     * @param event       the interaction
+     * @param componentID the ID of the component or modal
+     * @return the game, or null if the user isn't playing it
+     */
+    private Game findGame(IReplyCallback event, String componentID) {
+        Game game = getGameManager().getGame(event.getUser().getIdLong());
+        if (game == null || game.getGameID() != GuessComponents.getGameID(componentID)) {
+            event.reply("This game is over or you are not playing in it.").setEphemeral(true).queue();
+            return null;
+        }
+        return game;
+    }
+
+    /**
+     * Checks, from the game's mailbox, that the game is still running and it's the user's turn.
+     * Otherwise the user is told why their guess doesn't count, in a follow-up to the acknowledged interaction.
+     *
+     * @param event the acknowledged interaction
+     * @param game  the game the interaction belongs to
+     * @return true if the user may guess now
+     */
+    private boolean isPlayersTurn(IDeferrableCallback event, Game game) {
+        if (game.isEnded()) {
+            event.getHook().sendMessage("This game is over or you are not playing in it.").setEphemeral(true).queue();
+            return false;
+        }
+        if (game.getWhosTurn().id() != event.getUser().getIdLong()) {
+            event.getHook().sendMessage("It's not your turn.").setEphemeral(true).queue();
+            return false;
+        }
+        return true;
+    }
+
+    private void playTurn(InteractionHook hook, Game game, String input) {
+        boolean goesOn = game.playTurn(input);
+        hook.editOriginalEmbeds(createGameEmbed(game))
+                .setComponents(goesOn ? GuessComponents.createRows(game) : List.of())
+                .queue();
+    }
+}
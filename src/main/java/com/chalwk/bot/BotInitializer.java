@@ -5,15 +5,17 @@ package com.chalwk.bot;
 
 import com.chalwk.CommandManager.CommandListener;
 import com.chalwk.Listeners.EventListeners;
+import com.chalwk.Listeners.GuessComponentListener;
 import com.chalwk.commands.*;
 import com.chalwk.game.GameManager;
+import com.chalwk.metrics.BotMetrics;
+import com.chalwk.metrics.MetricsServer;
+import com.chalwk.util.Settings;
 import com.chalwk.util.authentication;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.entities.Activity;
-import net.dv8tion.jda.api.requests.GatewayIntent;
 import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
 import net.dv8tion.jda.api.sharding.ShardManager;
-import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,8 +47,13 @@ public class BotInitializer {
     public void initializeBot() {
         try {
             gameManager = new GameManager();
+            BotMetrics.registerGauges(gameManager);
+            MetricsServer.startIfEnabled();
             shardManager = createShardManager();
             shardManager.addEventListener(new EventListeners());
+            if (Settings.useComponentGuesses()) {
+                shardManager.addEventListener(new GuessComponentListener());
+            }
             registerCommands(shardManager);
         } catch (Exception e) {
             logger.error("Failed to initialize bot", e);
@@ -54,15 +61,12 @@ public class BotInitializer {
     }
 
     private ShardManager createShardManager() {
-        DefaultShardManagerBuilder builder = DefaultShardManagerBuilder.createDefault(this.token)
+        GatewayProfile profile = GatewayProfile.getSelected();
+        DefaultShardManagerBuilder builder = profile.createBuilder(this.token, !Settings.useComponentGuesses())
                 .setStatus(BOT_STATUS)
-                .setActivity(Activity.playing(GAME_ACTIVITY))
-                .setMemberCachePolicy(MemberCachePolicy.ALL)
-                .enableIntents(GatewayIntent.GUILD_MEMBERS,
-                        GatewayIntent.GUILD_MESSAGES,
-                        GatewayIntent.GUILD_PRESENCES,
-                        GatewayIntent.MESSAGE_CONTENT);
+                .setActivity(Activity.playing(GAME_ACTIVITY));
 
+        logger.info("Using gateway profile {}", profile);
         return builder.build();
     }
 
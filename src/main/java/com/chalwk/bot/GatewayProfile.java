@@ -0,0 +1,126 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.bot;
+
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * The gateway intents and caches the bot runs with, selected by the {@code hangman.profile} system property.
+ * <p>
+ * The bot only needs the guild and channel caches to find the channel a game is played in, plus guild messages
+ * when guesses are typed as chat messages. Everything else is cached only by {@link #FULL}, which is the setup of
+ * earlier versions, for deployments that rely on it.
+ * <p>
+ * The heap each profile costs per guild can be measured with the {@code GuildFootprint} tool of the simulation
+ * sources, over a synthetic population of guilds.
+ */
+public enum GatewayProfile {
+
+    /**
+     * The setup of earlier versions: {@link DefaultShardManagerBuilder#createDefault(String)} with the member and
+     * presence intents added, caching every member the gateway sends. Members aren't chunked, and the activity and
+     * status caches stay off.
+     */
+    FULL(withDefaultIntents(GatewayIntent.GUILD_MEMBERS, GatewayIntent.GUILD_PRESENCES),
+            MemberCachePolicy.ALL, ChunkingFilter.NONE,
+            CacheFlag.getPrivileged()),
+
+    /**
+     * Guilds and channels are cached; members, presences and the other optional caches are not.
+     */
+    LEAN(EnumSet.noneOf(GatewayIntent.class),
+            MemberCachePolicy.NONE, ChunkingFilter.NONE,
+            EnumSet.of(CacheFlag.ACTIVITY, CacheFlag.CLIENT_STATUS, CacheFlag.ONLINE_STATUS, CacheFlag.VOICE_STATE,
+                    CacheFlag.EMOJI, CacheFlag.STICKER, CacheFlag.SCHEDULED_EVENTS));
+
+    private static final String PROFILE_PROPERTY = "hangman.profile";
+
+    private final EnumSet<GatewayIntent> intents;
+    private final MemberCachePolicy memberCachePolicy;
+    private final ChunkingFilter chunkingFilter;
+    private final EnumSet<CacheFlag> disabledCaches;
+
+    GatewayProfile(EnumSet<GatewayIntent> intents, MemberCachePolicy memberCachePolicy, ChunkingFilter chunkingFilter, EnumSet<CacheFlag> disabledCaches) {
+        this.intents = intents;
+        this.memberCachePolicy = memberCachePolicy;
+        this.chunkingFilter = chunkingFilter;
+        this.disabledCaches = disabledCaches;
+    }
+
+    /**
+     * Gets the profile selected by the {@code hangman.profile} system property, defaulting to {@link #LEAN}.
+     *
+     * @return the selected profile
+     */
+    public static GatewayProfile getSelected() {
+        String name = System.getProperty(PROFILE_PROPERTY, LEAN.name());
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Logger.warning("Unknown gateway profile '{}', using {}", name, LEAN);
+            return LEAN;
+        }
+    }
+
+    private static EnumSet<GatewayIntent> withDefaultIntents(GatewayIntent... intents) {
+        EnumSet<GatewayIntent> enabled = GatewayIntent.getIntents(GatewayIntent.DEFAULT);
+        enabled.addAll(Arrays.asList(intents));
+        return enabled;
+    }
+
+    /**
+     * Creates a shard manager builder with the intents and caches of the profile.
+     *
+     * @param token          the bot token
+     * @param messageGuesses true if guesses are typed as chat messages
+     * @return the builder
+     */
+    public DefaultShardManagerBuilder createBuilder(String token, boolean messageGuesses) {
+        return DefaultShardManagerBuilder.create(token, getIntents(messageGuesses))
+                .setMemberCachePolicy(memberCachePolicy)
+                .setChunkingFilter(chunkingFilter)
+                .disableCache(disabledCaches);
+    }
+
+    /**
+     * Gets the intents of the profile, together with the intents the enabled features need.
+     *
+     * @param messageGuesses true if guesses are typed as chat messages
+     * @return the gateway intents to enable
+     */
+    public EnumSet<GatewayIntent> getIntents(boolean messageGuesses) {
+        EnumSet<GatewayIntent> enabled = EnumSet.copyOf(intents);
+        if (messageGuesses) {
+            enabled.add(GatewayIntent.GUILD_MESSAGES);
+            enabled.add(GatewayIntent.MESSAGE_CONTENT);
+        }
+        return enabled;
+    }
+
+    public MemberCachePolicy getMemberCachePolicy() {
+        return memberCachePolicy;
+    }
+
+    public ChunkingFilter getChunkingFilter() {
+        return chunkingFilter;
+    }
+
+    /**
+     * Gets the caches the profile turns off.
+     *
+     * @return the disabled cache flags
+     */
+    public EnumSet<CacheFlag> getDisabledCaches() {
+        return EnumSet.copyOf(disabledCaches);
+    }
+}
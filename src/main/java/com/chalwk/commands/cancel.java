@@ -2,11 +2,10 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.commands;
 
-import com.chalwk.CommandManager.CommandCooldownManager;
 import com.chalwk.CommandManager.CommandInterface;
+import com.chalwk.game.GameInvite;
 import com.chalwk.game.GameManager;
 import com.chalwk.util.Settings;
-import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 
@@ -18,11 +17,6 @@ import java.util.List;
  */
 public class cancel implements CommandInterface {
 
-    /**
-     * The cooldown manager for the command.
-     */
-    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
-
     /**
      * The game manager for managing game operations.
      */
@@ -59,15 +53,13 @@ public class cancel implements CommandInterface {
      */
     @Override
     public void execute(SlashCommandInteractionEvent event) {
-        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
-
         if (Settings.notCorrectChannel(event)) return;
 
-        User user = event.getUser();
-        String invitee = gameManager.getInvitee(user);
-        gameManager.cancelInvite(user);
-        event.reply("Invite to play a game with " + invitee + " has been canceled.").setEphemeral(true).queue();
-
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
+        GameInvite invite = gameManager.cancelInvite(event.getUser().getIdLong());
+        if (invite == null) {
+            event.reply("## You don't have any pending invites.").setEphemeral(true).queue();
+            return;
+        }
+        event.reply("Invite to play a game with " + invite.getInvitedPlayer().mention() + " has been canceled.").setEphemeral(true).queue();
     }
 }
@@ -2,9 +2,9 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.commands;
 
-import com.chalwk.CommandManager.CommandCooldownManager;
 import com.chalwk.CommandManager.CommandInterface;
 import com.chalwk.game.GameManager;
+import com.chalwk.util.ChannelRegistry;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
@@ -15,20 +15,15 @@ import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.chalwk.util.FileIO.isChannelIdConfigured;
-import static com.chalwk.util.FileIO.saveChannelID;
-
 /**
  * Represents a command for setting or removing the channel for the Hangman bot to use.
  */
 public class channel implements CommandInterface {
 
-    private static final String configFile = "/config.txt";
-    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
-    private final GameManager gameManager;
+    private final ChannelRegistry channelRegistry;
 
     public channel(GameManager gameManager) {
-        this.gameManager = gameManager;
+        this.channelRegistry = gameManager.getChannelRegistry();
     }
 
     @Override
@@ -63,40 +58,40 @@ public class channel implements CommandInterface {
      */
     @Override
     public void execute(SlashCommandInteractionEvent event) {
-
-        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
-
         String optionName = event.getOptions().get(0).getName();
         String optionValue = event.getOption(optionName).getAsString();
 
         TextChannel channel = event.getOption("channel").getAsChannel().asTextChannel();
 
-        String channelID = channel.getId();
         boolean isAddOperation = optionValue.equals("add");
 
         if (initialErrorChecking(event, channel)) return;
+
+        long guildID = event.getGuild().getIdLong();
+        long channelID = channel.getIdLong();
+        boolean configured = channelRegistry.isConfigured(guildID, channelID);
         if (isAddOperation) {
-            if (isChannelIdConfigured(channelID)) {
+            if (configured) {
                 event.reply("## Channel ID is already configured!").setEphemeral(true).queue();
                 return;
             }
+            channelRegistry.setChannel(guildID, channelID);
+            event.reply("## Channel ID saved!").setEphemeral(true).queue();
         } else {
-            if (!isChannelIdConfigured(channelID)) {
+            if (!configured) {
                 event.reply("## Channel ID is not configured! Unable to remove.").setEphemeral(true).queue();
                 return;
             }
+            channelRegistry.removeChannel(guildID);
+            event.reply("## Channel ID removed!").setEphemeral(true).queue();
         }
-
-        saveChannelID(channelID, isAddOperation, event, gameManager);
-
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
     }
 
     private boolean initialErrorChecking(SlashCommandInteractionEvent event, TextChannel channel) {
         Member member = event.getMember();
         if (!member.hasPermission(Permission.ADMINISTRATOR)) {
             event.reply("## You must be an administrator to use this command!").setEphemeral(true).queue();
-            return false;
+            return true;
         } else if (channel == null) {
             event.reply("## Invalid channel ID!").setEphemeral(true).queue();
             return true;
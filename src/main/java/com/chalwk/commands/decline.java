@@ -2,11 +2,9 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.commands;
 
-import com.chalwk.CommandManager.CommandCooldownManager;
 import com.chalwk.CommandManager.CommandInterface;
 import com.chalwk.game.GameManager;
 import com.chalwk.util.Settings;
-import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 
@@ -18,11 +16,6 @@ import java.util.List;
  */
 public class decline implements CommandInterface {
 
-    /**
-     * The cooldown manager for the command.
-     */
-    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
-
     /**
      * The game manager for managing game operations.
      */
@@ -59,19 +52,15 @@ public class decline implements CommandInterface {
      */
     @Override
     public void execute(SlashCommandInteractionEvent event) {
-        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
-
         if (Settings.notCorrectChannel(event)) return;
 
-        User decliningPlayer = event.getUser();
+        long decliningPlayer = event.getUser().getIdLong();
 
-        if (!gameManager.getPendingInvites().containsKey(decliningPlayer)) {
+        if (!gameManager.hasPendingInvite(decliningPlayer)) {
             event.reply("## You don't have any pending invites.").setEphemeral(true).queue();
             return;
         }
 
         gameManager.declineInvite(decliningPlayer, event);
-
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
     }
 }
@@ -2,9 +2,10 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.commands;
 
-import com.chalwk.CommandManager.CommandCooldownManager;
 import com.chalwk.CommandManager.CommandInterface;
 import com.chalwk.game.GameManager;
+import com.chalwk.game.LayoutPack;
+import com.chalwk.game.LayoutRegistry;
 import com.chalwk.util.Settings;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
@@ -20,11 +21,6 @@ import java.util.List;
  */
 public class invite implements CommandInterface {
 
-    /**
-     * The cooldown manager for the command.
-     */
-    private static final CommandCooldownManager COOLDOWN_MANAGER = new CommandCooldownManager();
-
     /**
      * The game manager for managing game operations.
      */
@@ -56,8 +52,9 @@ public class invite implements CommandInterface {
         options.add(new OptionData(OptionType.USER, "opponent", "The user to invite", true));
         OptionData option = new OptionData(OptionType.INTEGER, "layout", "The hangman layout you want to use", true);
 
-        option.addChoice("Gallows", 0);
-        option.addChoice("Exercise", 1);
+        for (LayoutPack pack : LayoutRegistry.getPacks()) {
+            option.addChoice(pack.getName(), pack.getId());
+        }
 
         options.add(option);
         return options;
@@ -70,8 +67,6 @@ public class invite implements CommandInterface {
      */
     @Override
     public void execute(SlashCommandInteractionEvent event) {
-        if (COOLDOWN_MANAGER.isOnCooldown(event)) return;
-
         if (Settings.notCorrectChannel(event)) return;
 
         OptionMapping layoutOption = event.getOption("layout");
@@ -80,17 +75,9 @@ public class invite implements CommandInterface {
 
         //if (isSelf(event, userToInvite, invitingPlayer)) return;
 
-        int layout;
-        int layoutIndex = layoutOption.getAsInt();
-        layout = switch (layoutIndex) {
-            case 0 -> 0;
-            case 1 -> 1;
-            default -> 0;
-        };
+        int layout = LayoutRegistry.get(layoutOption.getAsInt()).getId();
 
         gameManager.invitePlayer(invitingPlayer, userToInvite, layout, event);
-
-        COOLDOWN_MANAGER.setCooldown(getName(), event.getUser());
     }
 
     private boolean isSelf(SlashCommandInteractionEvent event, User userToInvite, User invitingPlayer) {
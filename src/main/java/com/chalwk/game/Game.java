@@ -2,102 +2,272 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.game;
 
+import com.chalwk.metrics.BotMetrics;
+import com.chalwk.util.EmbedEditCoalescer;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.Mailbox;
 import com.chalwk.util.Settings;
-import com.chalwk.util.WordList;
-import net.dv8tion.jda.api.EmbedBuilder;
-import net.dv8tion.jda.api.entities.User;
+import com.chalwk.util.TimingWheel;
+import com.chalwk.util.WordDealer;
+import net.dv8tion.jda.api.entities.EmbedType;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.requests.RestAction;
 
 import java.awt.*;
+import java.util.Date;
 import java.util.List;
-import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static com.chalwk.bot.BotInitializer.getShardManager;
-import static com.chalwk.game.Guess.showGuesses;
 
 /**
  * Represents a game between two players, managing game-related operations such as starting a game and scheduling game end tasks.
+ * <p>
+ * The rules live in the game's {@link HangmanEngine}; the game adapts the engine to Discord, rendering its state into
+ * the game embed and turning the outcome of each guess into replies, edits and the game over message.
+ * <p>
+ * Everything that changes a game, from its start through its guesses to its end or timeout, is posted to the game's
+ * {@link Mailbox} and runs there one event at a time. The state of a game is only touched from its mailbox, so it
+ * needs no locks, while different games are played in parallel.
  */
 public class Game {
 
-    private final User invitingPlayer;
-    private final User invitedPlayer;
-    private final int hangmanLayout;
+    /**
+     * The least time a recovered game is given before its deadline fires, so the time-up message can reach
+     * its channel once the shards have connected.
+     */
+    private static final long RECOVERY_GRACE_SECONDS = 30;
+    private static final String TITLE = "\uD83D\uDD74 \uD80C\uDF6F Hangman \uD80C\uDF6F \uD83D\uDD74";
+    private static final int EMBED_COLOR = Color.BLUE.getRGB();
+
+    private final long gameID;
+    private final Player invitingPlayer;
+    private final Player invitedPlayer;
+    private final LayoutPack layoutPack;
     private final String wordToGuess;
-    private final int maxMistakes;
+    private final HangmanEngine engine;
     private final GameManager gameManager;
-    public int mistakes = 0;
-    public int correctGuesses = 0;
-    public List<Character> guesses = new ArrayList<>();
-    private String embedID;
-    private User whos_turn;
+    private final char[] guessBox;
+    private final char[] guessedLine = new char[Guess.ALPHABET_SIZE * Guess.CELL_WIDTH];
+    private String guessBoxText;
+    private String guessedLineText = "";
+    private final MessageEmbed.Field playersField;
+    private final MessageEmbed.Field invitingPlayersTurnField;
+    private final MessageEmbed.Field invitedPlayersTurnField;
+    private final MessageEmbed.Footer footer;
+    private MessageEmbed.Field charactersField;
+    private MessageEmbed.Field guessesField;
+    private final EmbedEditCoalescer embedEdits = new EmbedEditCoalescer(this::createEmbedEdit);
+    private volatile InteractionHook embedHook;
+    private volatile long embedMessageID;
+    private final long channelID;
     private Date startTime;
-    private TimerTask gameEndTask;
+    private final Mailbox mailbox = new Mailbox();
+    private boolean ended;
+    private volatile TimingWheel.Timeout gameEndTask;
 
     /**
-     * Creates a new Game instance for the specified players, event, and layout.
+     * Creates a new Game instance for the specified players and layout. The game doesn't begin until {@link #startGame} is called.
      *
+     * @param gameID         the ID of the game, unique across restarts
      * @param invitingPlayer the user who initiated the game
      * @param invitedPlayer  the user who was invited to join the game
-     * @param event          the event that triggered the game creation
      * @param layout         the layout of the hangman game
+     * @param guildID        the ID of the guild the game is played in, which picks the deck its word is dealt from, or 0
+     *                       to deal from the channel's own deck
+     * @param channelID      the ID of the channel the game is played in
+     * @param gameManager    the game manager the game is registered with
      */
-    public Game(User invitingPlayer, User invitedPlayer, SlashCommandInteractionEvent event, int layout, GameManager gameManager) {
+    public Game(long gameID, Player invitingPlayer, Player invitedPlayer, int layout, long guildID, long channelID, GameManager gameManager) {
+        this.gameID = gameID;
+        this.channelID = channelID;
         this.invitingPlayer = invitingPlayer;
         this.invitedPlayer = invitedPlayer;
-        this.hangmanLayout = layout;
-        this.wordToGuess = WordList.getRandomWord();
-        this.whos_turn = getStartingPlayer();
-        this.maxMistakes = layout == 0 ? 7 : 6;
+        this.layoutPack = LayoutRegistry.get(layout);
+        this.wordToGuess = WordDealer.getShared().deal(guildID, channelID);
+        this.engine = new HangmanEngine(wordToGuess, layoutPack.getMaxMistakes(), getStartingPlayer() == invitingPlayer);
+        this.gameManager = gameManager;
+        this.guessBox = Guess.createGuessBox(wordToGuess);
+        this.playersField = new MessageEmbed.Field("Players: ", invitingPlayer.mention() + " VS " + invitedPlayer.mention(), true);
+        this.invitingPlayersTurnField = createTurnField(invitingPlayer);
+        this.invitedPlayersTurnField = createTurnField(invitedPlayer);
+        this.footer = new MessageEmbed.Footer("Guess a letter or the word: " + wordToGuess.length() + " characters", null, null);
+        refreshGuessFields();
+    }
+
+    /**
+     * Recreates a game that was still running when the bot stopped, from its journaled state.
+     * The guess buffers are rebuilt from the guessed letters, and the embed is edited through its message ID
+     * because the interaction hook of the original reply is gone.
+     *
+     * @param record      the journaled state of the game
+     * @param gameManager the game manager the game is registered with
+     */
+    Game(GameJournal.GameRecord record, GameManager gameManager) {
+        this.gameID = record.gameID;
+        this.channelID = record.channelID;
+        this.invitingPlayer = record.invitingPlayer;
+        this.invitedPlayer = record.invitedPlayer;
+        this.layoutPack = LayoutRegistry.get(record.layout);
+        this.wordToGuess = record.word;
+        this.engine = new HangmanEngine(wordToGuess, layoutPack.getMaxMistakes(), record.invitingPlayersTurn,
+                record.guessedLetters, record.mistakes);
         this.gameManager = gameManager;
-        this.correctGuesses = 0;
-        startGame(event);
+        this.guessBox = Guess.createGuessBox(wordToGuess);
+        this.playersField = new MessageEmbed.Field("Players: ", invitingPlayer.mention() + " VS " + invitedPlayer.mention(), true);
+        this.invitingPlayersTurnField = createTurnField(invitingPlayer);
+        this.invitedPlayersTurnField = createTurnField(invitedPlayer);
+        this.footer = new MessageEmbed.Footer("Guess a letter or the word: " + wordToGuess.length() + " characters", null, null);
+        onLettersGuessed(record.guessedLetters);
+        this.embedMessageID = record.messageID;
+        this.startTime = new Date(record.startMillis);
+
+        long remaining = record.startMillis + TimeUnit.SECONDS.toMillis(Settings.getDefaultTimeLimit()) - System.currentTimeMillis();
+        long delay = Math.max(remaining, TimeUnit.SECONDS.toMillis(RECOVERY_GRACE_SECONDS));
+        gameEndTask = TimingWheel.getShared().schedule(() -> post(this::onTimeUp), delay, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Creates an embed for the game with the specified game and guess box.
+     * Creates an embed for the game from its precomputed fields. Only the turn, stage, characters and guesses
+     * differ from turn to turn, and each of them is a field object built once and reused.
      *
-     * @param game     the game to create an embed for
-     * @param guessBox the guess box to display in the embed
+     * @param game the game to create an embed for
      * @return the embed for the game
      */
-    public static EmbedBuilder createGameEmbed(Game game, String guessBox) {
-        String stage = game.getCurrentLayout().getLayout();
-        return new EmbedBuilder()
-                .setTitle("\uD83D\uDD74 \uD80C\uDF6F Hangman \uD80C\uDF6F \uD83D\uDD74")
-                .addField("Players: ", game.getInvitingPlayer().getAsMention() + " VS " + game.getInvitedPlayer().getAsMention(), true)
-                .addField("Turn: ", game.getWhosTurn().getAsMention(), false)
-                .addField("Stage: ", "```" + stage + "```", false)
-                .addField("Characters:", guessBox != null ? guessBox : "```" + "〔 〕".repeat(game.getWordToGuess().length()) + "```", false)
-                .addField("Guesses: " + showGuesses(game.guesses), " ", false)
-                .setFooter("Guess a letter or the word: " + game.getWordToGuess().length() + " characters")
-                .setColor(Color.BLUE);
+    public static MessageEmbed createGameEmbed(Game game) {
+        List<MessageEmbed.Field> fields = List.of(
+                game.playersField,
+                game.engine.isInvitingPlayersTurn() ? game.invitingPlayersTurnField : game.invitedPlayersTurnField,
+                game.getCurrentStageField(),
+                game.charactersField,
+                game.guessesField);
+        return new MessageEmbed(null, TITLE, null, EmbedType.RICH, null, EMBED_COLOR,
+                null, null, null, null, game.footer, null, fields);
+    }
+
+    private static MessageEmbed.Field createTurnField(Player player) {
+        return new MessageEmbed.Field("Turn: ", player.mention(), false);
+    }
+
+    /**
+     * Rebuilds the fields that show the guess buffers, after the buffers have changed.
+     */
+    private void refreshGuessFields() {
+        guessBoxText = new String(guessBox);
+        charactersField = new MessageEmbed.Field("Characters:", guessBoxText, false);
+        guessesField = new MessageEmbed.Field("Guesses: " + guessedLineText, " ", false);
+    }
+
+    /**
+     * Patches the render buffers after letters have been guessed for the first time.
+     * Only the cells of the revealed positions are rewritten; the cached strings are refreshed from the buffers.
+     *
+     * @param letters the newly guessed letters, as a bitmask with bit 0 being 'a'
+     */
+    void onLettersGuessed(int letters) {
+        for (int mask = letters; mask != 0; mask &= mask - 1) {
+            int letter = Integer.numberOfTrailingZeros(mask);
+            long positions = engine.getLetterPositions(letter);
+            if (positions != 0) {
+                Guess.revealInGuessBox(guessBox, (char) ('a' + letter), positions);
+            }
+        }
+        guessedLineText = new String(guessedLine, 0, Guess.renderGuesses(engine.getGuessedLetters(), guessedLine));
+        refreshGuessFields();
+    }
+
+    /**
+     * Gets the rendered guess box, wrapped in a code block.
+     *
+     * @return the guess box
+     */
+    public String getGuessBox() {
+        return guessBoxText;
+    }
+
+    /**
+     * Gets the guessed letters, rendered in alphabetical order.
+     *
+     * @return the guessed letters
+     */
+    public String getGuessedLine() {
+        return guessedLineText;
+    }
+
+    /**
+     * Edits the game embed in place. Edits are coalesced, so while one is in flight only the latest state waits to be sent.
+     * If the initial reply has not completed yet, the embed is held back and sent as soon as the hook arrives.
+     *
+     * @param embed the new state of the game embed
+     */
+    public void editEmbed(MessageEmbed embed) {
+        embedEdits.submit(embed);
     }
 
     /**
-     * Gets the ID of the message embed for the game.
+     * Creates the request editing the game embed: through the interaction hook captured when the game started, or,
+     * for a game recovered after a restart, through the message ID.
      *
-     * @return the ID of the message embed for the game
+     * @param embed the new state of the game embed
+     * @return the edit request, or null if the message can't be edited yet
      */
-    public String getEmbedID() {
-        return this.embedID;
+    private RestAction<?> createEmbedEdit(MessageEmbed embed) {
+        InteractionHook hook = embedHook;
+        if (hook != null) {
+            return hook.editOriginalEmbeds(embed);
+        }
+        TextChannel channel = embedMessageID == 0 ? null : getShardManager().getTextChannelById(channelID);
+        return channel == null ? null : channel.editMessageEmbedsById(embedMessageID, embed);
     }
 
     /**
-     * Sets the ID of the message embed for the game.
+     * Captures the interaction hook of the game's initial reply and flushes any embed state produced before it arrived.
      *
-     * @param embedID the ID of the message embed for the game
+     * @param hook the hook of the reply that holds the game embed
      */
-    private void setEmbedID(String embedID) {
-        this.embedID = embedID;
+    private void setEmbedHook(InteractionHook hook) {
+        this.embedHook = hook;
+        embedEdits.resume();
     }
 
     /**
-     * Sets the player whose turn it is to play.
+     * Plays a turn for the player whose turn it is, through the engine. Ends the game if the turn won or lost it;
+     * otherwise patches the render buffers if new letters were guessed and journals the state the turn left the game in.
+     * Must be called from the game's mailbox.
+     *
+     * @param input the letter or word guessed, in lower case
+     * @return true if the game goes on, false if the turn ended it
      */
-    public void setWhosTurn() {
-        this.whos_turn = this.whos_turn.equals(invitingPlayer) ? invitedPlayer : invitingPlayer;
+    public boolean playTurn(String input) {
+        Player player = getWhosTurn();
+        int guessedLetters = engine.getGuessedLetters();
+        HangmanEngine.Outcome outcome = engine.applyGuess(input);
+        BotMetrics.guessPlayed(outcome);
+        switch (outcome) {
+            case WON -> {
+                endGame(player, null);
+                return false;
+            }
+            case LOST -> {
+                endGame(player, "Nobody. You lost! The word was: " + wordToGuess);
+                return false;
+            }
+            case OVER -> {
+                return false;
+            }
+            default -> {
+                int newLetters = engine.getGuessedLetters() & ~guessedLetters;
+                if (newLetters != 0) {
+                    onLettersGuessed(newLetters);
+                }
+                gameManager.getJournal().turnPlayed(this);
+                return true;
+            }
+        }
     }
 
     /**
@@ -105,105 +275,183 @@ public class Game {
      *
      * @return the player whose turn it is to play
      */
-    public User getWhosTurn() {
-        return whos_turn;
+    public Player getWhosTurn() {
+        return engine.isInvitingPlayersTurn() ? invitingPlayer : invitedPlayer;
+    }
+
+    /**
+     * Posts an event to the game's mailbox. It runs after every event posted to the game before it, and never
+     * at the same time as another event of the game.
+     *
+     * @param event the event
+     */
+    public void post(Runnable event) {
+        mailbox.post(event);
+    }
+
+    /**
+     * Gets the number of events waiting or running in the game's mailbox.
+     *
+     * @return the queue depth of the game
+     */
+    public int getQueueDepth() {
+        return mailbox.getDepth();
+    }
+
+    /**
+     * Checks if the game has ended, by a guess or because its time ran out. Must be called from the game's mailbox.
+     *
+     * @return true if the game has ended
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Gets the engine that holds the state of the game and applies its rules.
+     *
+     * @return the engine of the game
+     */
+    public HangmanEngine getEngine() {
+        return engine;
     }
 
     /**
      * Starts the game, sends a notification to both players, and schedules the game end task.
+     * Must be called from the game's mailbox.
      *
      * @param event the event that triggered the game start
      */
     public void startGame(SlashCommandInteractionEvent event) {
         this.startTime = new Date();
         scheduleGameEndTask();
-        event.replyEmbeds(createGameEmbed(this, null).build()).queue();
-        setMessageID(event);
+        gameManager.getJournal().gameCreated(this);
+        event.replyEmbeds(createGameEmbed(this))
+                .setComponents(Settings.useComponentGuesses() ? GuessComponents.createRows(this) : List.of())
+                .queue(hook -> {
+                    setEmbedHook(hook);
+                    hook.retrieveOriginal().queue(message -> {
+                        embedMessageID = message.getIdLong();
+                        gameManager.getJournal().embedAttached(this, embedMessageID);
+                    }, null);
+                });
     }
 
     /**
      * Ends the game, sends a notification to both players, and removes the game from the game manager.
+     * Must be called from the game's mailbox.
      *
      * @param winner the winner of the game
      */
-    public void endGame(User winner, String nobody) {
-        String channelID = GameManager.getChannelID();
+    public void endGame(Player winner, String nobody) {
+        if (ended) {
+            return;
+        }
+        ended = true;
         TextChannel channel = getShardManager().getTextChannelById(channelID);
         cancelGameEndTask();
-        String result = nobody != null ? nobody : winner.getAsMention();
+        String result = nobody != null ? nobody : winner.mention();
 
-        channel.sendMessageEmbeds(new EmbedBuilder()
-                .setTitle("Game Over!")
-                .setDescription("The game between " + invitingPlayer.getName() + " and " + invitedPlayer.getName() + " has ended!")
-                .addField("Winner: ", result, true)
-                .setColor(Color.BLUE).build()).queue();
+        if (channel != null) {
+            channel.sendMessageEmbeds(new MessageEmbed(null, "Game Over!",
+                    "The game between " + invitingPlayer.name() + " and " + invitedPlayer.name() + " has ended!",
+                    EmbedType.RICH, null, EMBED_COLOR, null, null, null, null, null, null,
+                    List.of(new MessageEmbed.Field("Winner: ", result, true)))).queue();
+        }
 
-        gameManager.removeGame(invitingPlayer, invitedPlayer);
+        gameManager.removeGame(this);
     }
 
     /**
-     * Updates the game state based on the number of mistakes made.
+     * Gets the stage field for the number of mistakes made so far.
+     *
+     * @return the stage field of the game embed
      */
-    public HangmanLayout getCurrentLayout() {
-        return switch (mistakes) {
-            case 0 -> hangmanLayout == 0 ? HangmanLayout.GALLOWS_8 : HangmanLayout.EXERCISE_6;
-            case 1 -> hangmanLayout == 0 ? HangmanLayout.GALLOWS_7 : HangmanLayout.EXERCISE_5;
-            case 2 -> hangmanLayout == 0 ? HangmanLayout.GALLOWS_6 : HangmanLayout.EXERCISE_4;
-            case 3 -> hangmanLayout == 0 ? HangmanLayout.GALLOWS_5 : HangmanLayout.EXERCISE_3;
-            case 4 -> hangmanLayout == 0 ? HangmanLayout.GALLOWS_4 : HangmanLayout.EXERCISE_2;
-            case 5 -> hangmanLayout == 0 ? HangmanLayout.GALLOWS_3 : HangmanLayout.EXERCISE_1;
-            case 6 -> HangmanLayout.GALLOWS_2;
-            case 7 -> HangmanLayout.GALLOWS_1;
-            default -> throw new IllegalStateException("Unsupported layout stage [" + mistakes + "]");
-        };
+    public MessageEmbed.Field getCurrentStageField() {
+        return layoutPack.getStageField(Math.min(engine.getMistakes(), engine.getMaxMistakes()));
     }
 
     /**
-     * Schedules a task to end the game when the default time limit is reached.
+     * Registers the game's deadline with the shared timing wheel so the game ends when the default time limit is reached.
      */
     private void scheduleGameEndTask() {
-        if (gameEndTask != null) {
-            gameEndTask.cancel();
+        cancelGameEndTask();
+        gameEndTask = TimingWheel.getShared().schedule(() -> post(this::onTimeUp), Settings.getDefaultTimeLimit(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ends the game when its deadline fires, taking the guess components off its embed. Must be called from the
+     * game's mailbox.
+     */
+    void onTimeUp() {
+        gameEndTask = null;
+        if (ended) {
+            return;
         }
-        gameEndTask = new TimerTask() {
-            @Override
-            public void run() {
-                if (isTimeUp()) {
-                    this.cancel();
-                    String channelID = GameManager.getChannelID();
-                    TextChannel channel = getShardManager().getTextChannelById(channelID);
-                    channel.sendMessage("Times up! Game between " + invitingPlayer.getAsMention() + " and " + invitedPlayer.getAsMention() + " has ended!").queue();
-                    gameManager.removeGame(invitingPlayer, invitedPlayer);
-                }
-            }
-        };
+        ended = true;
+        TextChannel channel = getShardManager().getTextChannelById(channelID);
+        if (channel != null) {
+            channel.sendMessage("Times up! Game between " + invitingPlayer.mention() + " and " + invitedPlayer.mention() + " has ended!").queue();
+        }
+        if (Settings.useComponentGuesses()) {
+            removeGuessComponents();
+        }
+        gameManager.removeGame(this);
+    }
 
-        Timer gameEndTimer = new Timer();
-        gameEndTimer.scheduleAtFixedRate(gameEndTask, 0, 1000);
+    /**
+     * Edits the game embed a last time with the final board and no components, as a game ended by a guess is.
+     * Goes through the interaction hook, or the message ID for a game recovered after a restart.
+     */
+    private void removeGuessComponents() {
+        MessageEmbed embed = createGameEmbed(this);
+        InteractionHook hook = embedHook;
+        RestAction<?> edit;
+        if (hook != null) {
+            edit = hook.editOriginalEmbeds(embed).setComponents();
+        } else {
+            TextChannel channel = embedMessageID == 0 ? null : getShardManager().getTextChannelById(channelID);
+            edit = channel == null ? null : channel.editMessageEmbedsById(embedMessageID, embed).setComponents();
+        }
+        if (edit != null) {
+            edit.queue(null, throwable -> Logger.warning("Failed to remove the guess components: {}", throwable.getMessage()));
+        }
     }
 
     /**
-     * Sets the ID of the message embed for the game after a delay.
+     * Gets the ID of the game.
      *
-     * @param event the event associated with the command execution
+     * @return the ID of the game
      */
-    private void setMessageID(SlashCommandInteractionEvent event) {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                setEmbedID(event.getChannel().getLatestMessageId());
-            }
-        }, 500);
+    public long getGameID() {
+        return gameID;
+    }
+
+    /**
+     * Gets the layout of the game.
+     *
+     * @return the layout of the game
+     */
+    public int getLayout() {
+        return layoutPack.getId();
+    }
+
+    /**
+     * Gets the time the game started, in milliseconds since the epoch.
+     *
+     * @return the start time of the game
+     */
+    public long getStartMillis() {
+        return startTime.getTime();
     }
 
     /**
-     * Checks if the default time limit for the game has been exceeded.
+     * Gets the ID of the channel the game is played in.
      *
-     * @return true if the time limit has been exceeded, false otherwise
+     * @return the ID of the channel
      */
-    private boolean isTimeUp() {
-        long elapsedTime = System.currentTimeMillis() - startTime.getTime();
-        return elapsedTime > Settings.getDefaultTimeLimit() * 1000L;
+    public long getChannelID() {
+        return channelID;
     }
 
     /**
@@ -220,7 +468,7 @@ public class Game {
      *
      * @return the player who initiated the game
      */
-    public User getInvitingPlayer() {
+    public Player getInvitingPlayer() {
         return invitingPlayer;
     }
 
@@ -229,7 +477,7 @@ public class Game {
      *
      * @return the player who was invited to join the game
      */
-    public User getInvitedPlayer() {
+    public Player getInvitedPlayer() {
         return invitedPlayer;
     }
 
@@ -238,23 +486,24 @@ public class Game {
      *
      * @return the player who starts the game
      */
-    public User getStartingPlayer() {
-        return new Random().nextBoolean() ? invitingPlayer : invitedPlayer;
+    public Player getStartingPlayer() {
+        return ThreadLocalRandom.current().nextBoolean() ? invitingPlayer : invitedPlayer;
     }
 
     /**
      * Checks if the specified player is in the game.
      *
-     * @param player the player to check
+     * @param playerID the ID of the player to check
      * @return true if the player is in the game, false otherwise
      */
-    public boolean isPlayer(User player) {
-        return player.equals(invitingPlayer) || player.equals(invitedPlayer);
+    public boolean isPlayer(long playerID) {
+        return playerID == invitingPlayer.id() || playerID == invitedPlayer.id();
     }
 
     private void cancelGameEndTask() {
-        if (gameEndTask != null) {
-            gameEndTask.cancel();
+        TimingWheel.Timeout task = gameEndTask;
+        if (task != null) {
+            task.cancel();
             gameEndTask = null;
         }
     }
@@ -265,6 +514,6 @@ public class Game {
      * @return the maximum number of mistakes allowed in the game
      */
     public int getMaxMistakes() {
-        return this.maxMistakes;
+        return engine.getMaxMistakes();
     }
 }
\ No newline at end of file
@@ -3,29 +3,58 @@
 
 package com.chalwk.game;
 
-import net.dv8tion.jda.api.entities.User;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GameInvite {
 
-    private final User invitingPlayer;
-    private final User invitedPlayer;
+    private final Player invitingPlayer;
+    private final Player invitedPlayer;
     private final int layout;
+    private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
 
-    public GameInvite(User invitingPlayer, User invitedPlayer, int layout) {
+    public GameInvite(Player invitingPlayer, Player invitedPlayer, int layout) {
         this.invitingPlayer = invitingPlayer;
         this.invitedPlayer = invitedPlayer;
         this.layout = layout;
     }
 
-    public User getInvitingPlayer() {
+    public Player getInvitingPlayer() {
         return invitingPlayer;
     }
 
-    public User getInvitedPlayer() {
+    public Player getInvitedPlayer() {
         return invitedPlayer;
     }
 
     public int getLayout() {
         return layout;
     }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Atomically moves the invite from one state to another.
+     * Only one of several concurrent transitions out of the same state can succeed.
+     *
+     * @param from the state the invite is expected to be in
+     * @param to   the state to move the invite to
+     * @return true if the invite was in the expected state and has been moved, false otherwise
+     */
+    public boolean transition(State from, State to) {
+        return state.compareAndSet(from, to);
+    }
+
+    /**
+     * The lifecycle of an invite. An invite is new until it has been stored, then pending, and ends up declined,
+     * cancelled or accepted; an accepted invite falls back to pending if the game could not be started.
+     */
+    public enum State {
+        NEW,
+        PENDING,
+        ACCEPTED,
+        DECLINED,
+        CANCELLED
+    }
 }
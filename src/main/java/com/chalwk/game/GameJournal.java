@@ -0,0 +1,584 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import com.chalwk.util.FileIO;
+import com.chalwk.util.Logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary journal of game and invite events, used to rebuild the {@link GameManager} after a restart or crash.
+ * <p>
+ * Callers only enqueue small event objects; a writer thread drains whatever has queued up, appends it to
+ * {@code games.journal} and syncs the batch with a single fsync (group commit), so journaling adds no disk
+ * latency to the guess path. The writer also keeps a mirror of the live state built from the events, and once
+ * enough events have accumulated it writes that mirror to {@code games.snapshot} and truncates the journal.
+ * <p>
+ * Every event carries the full value of what it changes rather than a delta, so replaying journal entries that
+ * are already contained in the snapshot is harmless. Each entry is stored as {@code [length][payload][crc32]};
+ * recovery stops at the first torn or corrupt entry. The snapshot starts with the highest game ID handed out so far,
+ * so IDs keep counting up after the games that used them have been compacted away.
+ */
+public class GameJournal {
+
+    private static final String JOURNAL_FILE = "games.journal";
+    private static final String SNAPSHOT_FILE = "games.snapshot";
+    private static final int COMPACT_THRESHOLD = 50_000;
+    private static final int MAX_ENTRY_SIZE = 64 * 1024;
+
+    private static final byte GAME_CREATED = 1;
+    private static final byte EMBED_ATTACHED = 2;
+    private static final byte TURN_PLAYED = 3;
+    private static final byte GAME_ENDED = 4;
+    private static final byte INVITE_CREATED = 5;
+    private static final byte INVITE_CLOSED = 6;
+    private static final byte GAME_IDS_USED = 7;
+
+    private final LinkedBlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final Map<Long, GameRecord> games = new HashMap<>();
+    private final Map<Long, InviteRecord> invites = new HashMap<>();
+    private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream entry = new DataOutputStream(entryBytes);
+    private final CRC32 crc = new CRC32();
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private FileChannel journal;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final AtomicLong gameIDs = new AtomicLong();
+    private final AtomicLong enqueued = new AtomicLong();
+    private volatile long written;
+    /**
+     * The highest game ID in the mirrored state, which only the writer thread touches once recovery is done.
+     * New IDs come from {@link #gameIDs}.
+     */
+    private long lastGameID;
+    private int entriesSinceSnapshot;
+
+    private GameJournal(Path directory) {
+        this.journalFile = directory == null ? null : directory.resolve(JOURNAL_FILE);
+        this.snapshotFile = directory == null ? null : directory.resolve(SNAPSHOT_FILE);
+    }
+
+    /**
+     * Opens the journal in the data directory, replays the snapshot and journal into memory and starts the writer.
+     *
+     * @return the journal, or a journal that discards every event if the data directory can't be used
+     */
+    public static GameJournal open() {
+        try {
+            return open(FileIO.getDataDirectory());
+        } catch (IOException e) {
+            Logger.warning("Game journal disabled: {}", e.getMessage());
+            return new GameJournal(null);
+        }
+    }
+
+    /**
+     * Opens the journal in a directory, replays it into memory and starts the writer.
+     *
+     * @param directory the directory holding the journal and snapshot
+     * @return the journal
+     * @throws IOException if the journal can't be read or opened for writing
+     */
+    static GameJournal open(Path directory) throws IOException {
+        GameJournal journal = replay(directory);
+        journal.start();
+        return journal;
+    }
+
+    /**
+     * Replays the journal in a directory into memory without opening it for writing, to inspect what a restart
+     * would recover.
+     *
+     * @param directory the directory holding the journal and snapshot
+     * @return the journal, which must not be written to
+     * @throws IOException if the journal can't be read
+     */
+    static GameJournal replay(Path directory) throws IOException {
+        GameJournal journal = new GameJournal(directory);
+        journal.recover();
+        return journal;
+    }
+
+    private static void writePlayer(DataOutputStream out, Player player) throws IOException {
+        out.writeLong(player.id());
+        out.writeUTF(player.name());
+    }
+
+    private static Player readPlayer(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        return new Player(id, in.readUTF(), "<@" + id + ">");
+    }
+
+    /**
+     * Gets the games that were still running when the bot stopped, as recovered on startup.
+     *
+     * @return the recovered games
+     */
+    public Collection<GameRecord> getRecoveredGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    /**
+     * Gets the invites that were still pending when the bot stopped, as recovered on startup.
+     *
+     * @return the recovered invites
+     */
+    public Collection<InviteRecord> getRecoveredInvites() {
+        return new ArrayList<>(invites.values());
+    }
+
+    /**
+     * Allocates the ID of a new game. IDs keep increasing across restarts.
+     *
+     * @return the game ID
+     */
+    public long nextGameID() {
+        return gameIDs.incrementAndGet();
+    }
+
+    /**
+     * Records a game that has just started.
+     *
+     * @param game the game
+     */
+    public void gameCreated(Game game) {
+        GameRecord record = new GameRecord();
+        record.gameID = game.getGameID();
+        record.channelID = game.getChannelID();
+        record.layout = game.getLayout();
+        record.startMillis = game.getStartMillis();
+        record.word = game.getWordToGuess();
+        record.invitingPlayer = game.getInvitingPlayer();
+        record.invitedPlayer = game.getInvitedPlayer();
+        record.invitingPlayersTurn = game.getWhosTurn() == game.getInvitingPlayer();
+        record.guessedLetters = game.getEngine().getGuessedLetters();
+        record.mistakes = game.getEngine().getMistakes();
+        enqueue(new GameCreated(record));
+    }
+
+    /**
+     * Records the message holding a game's embed, so the embed can still be edited after a restart.
+     *
+     * @param game      the game
+     * @param messageID the ID of the message
+     */
+    public void embedAttached(Game game, long messageID) {
+        enqueue(new EmbedAttached(game.getGameID(), messageID));
+    }
+
+    /**
+     * Records the guesses, mistakes and turn of a game after a turn has been played.
+     *
+     * @param game the game
+     */
+    public void turnPlayed(Game game) {
+        enqueue(new TurnPlayed(game.getGameID(), game.getEngine().getGuessedLetters(), game.getEngine().getMistakes(),
+                game.getEngine().isInvitingPlayersTurn()));
+    }
+
+    /**
+     * Records that a game has ended.
+     *
+     * @param game the game
+     */
+    public void gameEnded(Game game) {
+        enqueue(new GameEnded(game.getGameID()));
+    }
+
+    /**
+     * Records an invite that has just been sent.
+     *
+     * @param invite the invite
+     */
+    public void inviteCreated(GameInvite invite) {
+        enqueue(new InviteCreated(new InviteRecord(invite.getInvitingPlayer(), invite.getInvitedPlayer(), invite.getLayout())));
+    }
+
+    /**
+     * Records that an invite was accepted, declined or cancelled.
+     *
+     * @param invite the invite
+     */
+    public void inviteClosed(GameInvite invite) {
+        enqueue(new InviteClosed(invite.getInvitingPlayer().id(), invite.getInvitedPlayer().id()));
+    }
+
+    private void enqueue(Event event) {
+        if (journalFile != null) {
+            enqueued.incrementAndGet();
+            queue.offer(event);
+        }
+    }
+
+    /**
+     * Waits until every event recorded so far has been written and synced.
+     *
+     * @param timeoutMillis how long to wait at most
+     * @return true if the events were written in time
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    boolean awaitWritten(long timeoutMillis) throws InterruptedException {
+        long target = enqueued.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (written < target) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private void start() throws IOException {
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // Start from a compact snapshot, so the journal only holds what happens from now on.
+        compact();
+
+        Thread writer = new Thread(this::run, "hangman-journal");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "hangman-journal-flush"));
+    }
+
+    private void run() {
+        List<Event> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                write(batch);
+            } catch (InterruptedException ignored) {
+                // Keep draining; the journal lives as long as the bot.
+            } catch (IOException e) {
+                Logger.severe("Failed to write game journal: {}", e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void drain() {
+        List<Event> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        try {
+            write(batch);
+        } catch (IOException e) {
+            Logger.severe("Failed to flush game journal: {}", e.getMessage());
+        }
+    }
+
+    private void write(List<Event> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ioLock.lock();
+        try {
+            for (Event event : batch) {
+                event.apply(this);
+                append(event, journal);
+            }
+            flushBuffer(journal);
+            journal.force(false);
+            written += batch.size();
+
+            entriesSinceSnapshot += batch.size();
+            if (entriesSinceSnapshot >= COMPACT_THRESHOLD) {
+                compact();
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Adds an entry to the write buffer, first flushing the buffer to the file being written if the entry doesn't fit.
+     */
+    private void append(Event event, FileChannel channel) throws IOException {
+        entryBytes.reset();
+        event.write(entry);
+        int length = entryBytes.size();
+        if (buffer.remaining() < length + 2 * Integer.BYTES) {
+            flushBuffer(channel);
+            if (buffer.capacity() < length + 2 * Integer.BYTES) {
+                buffer = ByteBuffer.allocateDirect(length + 2 * Integer.BYTES);
+            }
+        }
+        byte[] payload = entryBytes.toByteArray();
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt(length);
+        buffer.put(payload);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private void flushBuffer(FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the mirrored state to a new snapshot and truncates the journal. Must hold {@link #ioLock}.
+     */
+    private void compact() throws IOException {
+        Path temp = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel snapshot = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            append(new GameIDsUsed(lastGameID), snapshot);
+            for (GameRecord record : games.values()) {
+                append(new GameCreated(record), snapshot);
+            }
+            for (InviteRecord record : invites.values()) {
+                append(new InviteCreated(record), snapshot);
+            }
+            flushBuffer(snapshot);
+            snapshot.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        journal.truncate(0);
+        journal.force(true);
+        entriesSinceSnapshot = 0;
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        int entries = replayFile(snapshotFile) + replayFile(journalFile);
+        gameIDs.set(lastGameID);
+        if (entries > 0) {
+            Logger.info("Recovered {} games and {} invites from {} journal entries in {} ms",
+                    games.size(), invites.size(), entries, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private int replayFile(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int count = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024))) {
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_ENTRY_SIZE) {
+                    Logger.warning("Stopping replay of {} at a corrupt entry", file.getFileName());
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                int checksum;
+                try {
+                    in.readFully(payload, 0, length);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    Logger.warning("Stopping replay of {} at a torn entry", file.getFileName());
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    Logger.warning("Stopping replay of {} at an entry with a bad checksum", file.getFileName());
+                    break;
+                }
+                read(new DataInputStream(new ByteArrayInputStream(payload, 0, length))).apply(this);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Event read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case GAME_CREATED -> {
+                GameRecord record = new GameRecord();
+                record.gameID = in.readLong();
+                record.channelID = in.readLong();
+                record.layout = in.readByte();
+                record.startMillis = in.readLong();
+                record.word = in.readUTF();
+                record.invitingPlayer = readPlayer(in);
+                record.invitedPlayer = readPlayer(in);
+                record.invitingPlayersTurn = in.readBoolean();
+                record.guessedLetters = in.readInt();
+                record.mistakes = in.readByte();
+                record.messageID = in.readLong();
+                yield new GameCreated(record);
+            }
+            case EMBED_ATTACHED -> new EmbedAttached(in.readLong(), in.readLong());
+            case TURN_PLAYED -> new TurnPlayed(in.readLong(), in.readInt(), in.readByte(), in.readBoolean());
+            case GAME_ENDED -> new GameEnded(in.readLong());
+            case INVITE_CREATED -> new InviteCreated(new InviteRecord(readPlayer(in), readPlayer(in), in.readByte()));
+            case INVITE_CLOSED -> new InviteClosed(in.readLong(), in.readLong());
+            case GAME_IDS_USED -> new GameIDsUsed(in.readLong());
+            default -> throw new IOException("Unknown journal entry type " + type);
+        };
+    }
+
+    /**
+     * The journaled state of a running game.
+     */
+    public static final class GameRecord {
+        public long gameID;
+        public long channelID;
+        public int layout;
+        public long startMillis;
+        public String word;
+        public Player invitingPlayer;
+        public Player invitedPlayer;
+        public boolean invitingPlayersTurn;
+        public int guessedLetters;
+        public int mistakes;
+        public long messageID;
+    }
+
+    /**
+     * The journaled state of a pending invite.
+     */
+    public record InviteRecord(Player invitingPlayer, Player invitedPlayer, int layout) {
+    }
+
+    private interface Event {
+        void apply(GameJournal journal);
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private record GameCreated(GameRecord record) implements Event {
+        public void apply(GameJournal journal) {
+            journal.games.put(record.gameID, record);
+            journal.lastGameID = Math.max(journal.lastGameID, record.gameID);
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(GAME_CREATED);
+            out.writeLong(record.gameID);
+            out.writeLong(record.channelID);
+            out.writeByte(record.layout);
+            out.writeLong(record.startMillis);
+            out.writeUTF(record.word);
+            writePlayer(out, record.invitingPlayer);
+            writePlayer(out, record.invitedPlayer);
+            out.writeBoolean(record.invitingPlayersTurn);
+            out.writeInt(record.guessedLetters);
+            out.writeByte(record.mistakes);
+            out.writeLong(record.messageID);
+        }
+    }
+
+    private record EmbedAttached(long gameID, long messageID) implements Event {
+        public void apply(GameJournal journal) {
+            GameRecord record = journal.games.get(gameID);
+            if (record != null) {
+                record.messageID = messageID;
+            }
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(EMBED_ATTACHED);
+            out.writeLong(gameID);
+            out.writeLong(messageID);
+        }
+    }
+
+    private record TurnPlayed(long gameID, int guessedLetters, int mistakes, boolean invitingPlayersTurn) implements Event {
+        public void apply(GameJournal journal) {
+            GameRecord record = journal.games.get(gameID);
+            if (record != null) {
+                record.guessedLetters = guessedLetters;
+                record.mistakes = mistakes;
+                record.invitingPlayersTurn = invitingPlayersTurn;
+            }
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(TURN_PLAYED);
+            out.writeLong(gameID);
+            out.writeInt(guessedLetters);
+            out.writeByte(mistakes);
+            out.writeBoolean(invitingPlayersTurn);
+        }
+    }
+
+    private record GameEnded(long gameID) implements Event {
+        public void apply(GameJournal journal) {
+            journal.games.remove(gameID);
+            journal.lastGameID = Math.max(journal.lastGameID, gameID);
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(GAME_ENDED);
+            out.writeLong(gameID);
+        }
+    }
+
+    private record InviteCreated(InviteRecord record) implements Event {
+        public void apply(GameJournal journal) {
+            journal.invites.put(record.invitedPlayer().id(), record);
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(INVITE_CREATED);
+            writePlayer(out, record.invitingPlayer());
+            writePlayer(out, record.invitedPlayer());
+            out.writeByte(record.layout());
+        }
+    }
+
+    private record InviteClosed(long invitingPlayerID, long invitedPlayerID) implements Event {
+        public void apply(GameJournal journal) {
+            InviteRecord record = journal.invites.get(invitedPlayerID);
+            if (record != null && record.invitingPlayer().id() == invitingPlayerID) {
+                journal.invites.remove(invitedPlayerID);
+            }
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(INVITE_CLOSED);
+            out.writeLong(invitingPlayerID);
+            out.writeLong(invitedPlayerID);
+        }
+    }
+
+    private record GameIDsUsed(long lastGameID) implements Event {
+        public void apply(GameJournal journal) {
+            journal.lastGameID = Math.max(journal.lastGameID, lastGameID);
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(GAME_IDS_USED);
+            out.writeLong(lastGameID);
+        }
+    }
+}
@@ -2,161 +2,317 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.game;
 
+import com.chalwk.util.ChannelRegistry;
+import com.chalwk.util.ConcurrentLongMap;
 import com.chalwk.util.WordList;
 import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.EmbedType;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
-
-import static com.chalwk.util.FileIO.loadChannelID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages game-related operations, including creating games, inviting players, and managing pending invites.
+ * <p>
+ * All state lives in concurrent maps keyed by Discord user ID and moves through atomic transitions, so invites,
+ * accepts, cancels and game timeouts arriving on different threads never corrupt the maps or put a player into two games.
  */
 public class GameManager {
 
-    private static String channelID = "";
-    private final Map<User, Game> games;
-    private final Map<User, GameInvite> pendingInvites;
+    private static final String INVITE_TITLE = "Hangman Game Invite";
+    private static final MessageEmbed.Footer INVITE_FOOTER = new MessageEmbed.Footer("Type /accept to join the game or /decline to decline the invite.", null, null);
 
+    private final ChannelRegistry channelRegistry;
+    private final GameJournal journal;
     /**
-     * Initializes an empty map for storing active games and pending invites.
+     * Books each player into their game. While an accepted invite is being turned into a game, its players are
+     * booked to the invite, so they count as playing before the game exists.
+     */
+    private final ConcurrentLongMap<Object> games;
+    private final ConcurrentLongMap<GameInvite> pendingInvites;
+    private final ConcurrentLongMap<GameInvite> sentInvites;
+    private final AtomicInteger activeGames = new AtomicInteger();
+
+    /**
+     * Initializes the maps for storing active games and pending invites, and restores the games and invites
+     * that were still open when the bot last stopped.
      */
     public GameManager() {
 
-        channelID = loadChannelID();
+        this.channelRegistry = new ChannelRegistry();
 
-        new WordList();
-        this.games = new HashMap<>();
-        this.pendingInvites = new HashMap<>();
+        WordList.load();
+        this.games = new ConcurrentLongMap<>();
+        this.pendingInvites = new ConcurrentLongMap<>();
+        this.sentInvites = new ConcurrentLongMap<>();
+        this.journal = GameJournal.open();
+        restore();
     }
 
-    public static String getChannelID() {
-        return GameManager.channelID;
+    /**
+     * Gets the registry of the Hangman channel configured for each guild.
+     *
+     * @return the channel registry
+     */
+    public ChannelRegistry getChannelRegistry() {
+        return channelRegistry;
     }
 
-    public void setChannelID(String channelID) {
-        GameManager.channelID = channelID;
+    /**
+     * Gets the journal the state of games and invites is recorded in.
+     *
+     * @return the game journal
+     */
+    public GameJournal getJournal() {
+        return journal;
     }
 
     /**
      * Checks if a user is currently playing a game.
      *
-     * @param player the user to check
+     * @param playerID the ID of the user to check
      * @return true if the user is in a game, false otherwise
      */
-    public boolean isInGame(User player) {
-        return games.containsKey(player);
+    public boolean isInGame(long playerID) {
+        return games.containsKey(playerID);
+    }
+
+    /**
+     * Checks if a user has received an invite that is still pending.
+     *
+     * @param invitedPlayerID the ID of the user to check
+     * @return true if the user has a pending invite, false otherwise
+     */
+    public boolean hasPendingInvite(long invitedPlayerID) {
+        return pendingInvites.containsKey(invitedPlayerID);
     }
 
     /**
      * Accepts a pending invite and creates a new game with the inviting and invited players.
+     * The invite is claimed atomically first, so a concurrent decline or cancel can't also act on it, and both
+     * players are booked before the game is created, so a failed accept uses up neither a game ID nor a word.
+     * If either player is already playing, the invite goes back to pending, or is closed if a newer invite
+     * replaced it in the meantime.
      *
-     * @param invitedPlayer the user who accepted the invite
-     * @param event         the event that triggered the invite acceptance
-     */
-    public void acceptInvite(User invitedPlayer, SlashCommandInteractionEvent event) {
-        GameInvite invite = pendingInvites.get(invitedPlayer);
-        User invitingPlayer = invite.getInvitingPlayer();
-        if (isInGame(invitingPlayer)) {
-            event.reply(invitingPlayer.getName() + " is already in a game.\nPlease wait until their current game is finished.").setEphemeral(true).queue();
+     * @param invitedPlayerID the ID of the user who accepted the invite
+     * @param event           the event that triggered the invite acceptance
+     */
+    public void acceptInvite(long invitedPlayerID, SlashCommandInteractionEvent event) {
+        GameInvite invite = pendingInvites.get(invitedPlayerID);
+        if (invite == null || !invite.transition(GameInvite.State.PENDING, GameInvite.State.ACCEPTED)) {
+            event.reply("## You don't have any pending invites.").setEphemeral(true).queue();
+            return;
+        }
+
+        Player busyPlayer = bookPlayers(invite);
+        if (busyPlayer != null) {
+            publish(invite, GameInvite.State.ACCEPTED);
+            event.reply(busyPlayer.id() == invitedPlayerID
+                    ? "## You are already in a game."
+                    : busyPlayer.name() + " is already in a game.\nPlease wait until their current game is finished.").setEphemeral(true).queue();
             return;
         }
-        createGame(invitingPlayer, invitedPlayer, event);
+
+        long guildID = event.getGuild() == null ? 0 : event.getGuild().getIdLong();
+        Game game = new Game(journal.nextGameID(), invite.getInvitingPlayer(), invite.getInvitedPlayer(), invite.getLayout(), guildID, event.getChannel().getIdLong(), this);
+        // Start the game before publishing it, so anything posted to it by someone who finds it runs after the start.
+        game.post(() -> game.startGame(event));
+        games.put(game.getInvitingPlayer().id(), game);
+        games.put(game.getInvitedPlayer().id(), game);
+        activeGames.incrementAndGet();
+        game.post(() -> {
+            if (game.isEnded()) {
+                // Ended by someone who found it through the first booking, before the second one was made.
+                games.remove(game.getInvitingPlayer().id(), game);
+                games.remove(game.getInvitedPlayer().id(), game);
+            }
+        });
+
+        removeInvite(invite);
     }
 
     /**
      * Declines a pending invite and notifies the inviting player.
      *
-     * @param invitedPlayer the user who declined the invite
-     * @param event         the event that triggered the invite decline
+     * @param invitedPlayerID the ID of the user who declined the invite
+     * @param event           the event that triggered the invite decline
      */
-    public void declineInvite(User invitedPlayer, SlashCommandInteractionEvent event) {
-        GameInvite invite = pendingInvites.get(invitedPlayer);
-        User invitingPlayer = invite.getInvitingPlayer();
+    public void declineInvite(long invitedPlayerID, SlashCommandInteractionEvent event) {
+        GameInvite invite = pendingInvites.get(invitedPlayerID);
+        if (invite == null || !invite.transition(GameInvite.State.PENDING, GameInvite.State.DECLINED)) {
+            event.reply("## You don't have any pending invites.").setEphemeral(true).queue();
+            return;
+        }
+
+        removeInvite(invite);
         event.replyEmbeds(new EmbedBuilder()
                 .setTitle("Hangman Game Invite Declined")
-                .setDescription(invitedPlayer.getAsMention() + " has declined the invite from " + invitingPlayer.getAsMention() + "!")
+                .setDescription(invite.getInvitedPlayer().mention() + " has declined the invite from " + invite.getInvitingPlayer().mention() + "!")
                 .setColor(Color.RED).build()).queue();
-        pendingInvites.remove(invitedPlayer);
     }
 
     /**
-     * Returns the map of pending invites.
+     * Gets the game a user is playing.
      *
-     * @return a map containing the pending invites
+     * @param playerID the ID of the user
+     * @return the game, or null if the user is not in a game
      */
-    public Map<User, GameInvite> getPendingInvites() {
-        return pendingInvites;
-    }
-
-    public Game getGame(User player) {
-        return games.get(player);
+    public Game getGame(long playerID) {
+        return games.get(playerID) instanceof Game game ? game : null;
     }
 
     /**
-     * Creates a new game and adds the inviting and invited players to it.
+     * Invites a player to join a game. A newer invite replaces any pending invite sent by the same player
+     * or received by the invited player.
      *
      * @param invitingPlayer the user who initiated the game
      * @param invitedPlayer  the user who was invited to join the game
-     * @param event          the event that triggered the game creation
+     * @param layout         the layout to use for the game
+     * @param event          the event that triggered the invite
      */
-    public void createGame(User invitingPlayer, User invitedPlayer, SlashCommandInteractionEvent event) {
-        int layout = pendingInvites.get(invitedPlayer).getLayout();
-        Game game = new Game(invitingPlayer, invitedPlayer, event, layout, this);
-        pendingInvites.remove(invitedPlayer);
-        games.put(invitingPlayer, game);
-        games.put(invitedPlayer, game);
+    public void invitePlayer(User invitingPlayer, User invitedPlayer, int layout, SlashCommandInteractionEvent event) {
+        if (!isInGame(invitingPlayer.getIdLong()) && !isInGame(invitedPlayer.getIdLong())) {
+            GameInvite invite = new GameInvite(Player.of(invitingPlayer), Player.of(invitedPlayer), layout);
+            supersede(pendingInvites.put(invitedPlayer.getIdLong(), invite));
+            supersede(sentInvites.put(invitingPlayer.getIdLong(), invite));
+            journal.inviteCreated(invite);
+            publish(invite, GameInvite.State.NEW);
+            event.replyEmbeds(new MessageEmbed(null, INVITE_TITLE,
+                    invitingPlayer.getAsMention() + " has invited " + invitedPlayer.getAsMention() + " to play a game!",
+                    EmbedType.RICH, null, Color.GREEN.getRGB(), null, null, null, null, INVITE_FOOTER, null,
+                    LayoutRegistry.get(layout).getInviteFields())).queue();
+        } else {
+            event.replyEmbeds(new EmbedBuilder()
+                    .setTitle(INVITE_TITLE)
+                    .setDescription("You or " + invitedPlayer.getName() + " are already in a game.")
+                    .setColor(Color.RED).build()).setEphemeral(true).queue();
+        }
     }
 
     /**
-     * Invites a player to join a game.
+     * Removes a game, releasing both of its players. Players that have already moved on to another game are left alone.
      *
-     * @param invitingPlayer the user who initiated the game
-     * @param invitedPlayer  the user who was invited to join the game
-     * @param layout         the layout to use for the game
-     * @param event          the event that triggered the invite
+     * @param game the game to remove
      */
-    public void invitePlayer(User invitingPlayer, User invitedPlayer, int layout, SlashCommandInteractionEvent event) {
+    public void removeGame(Game game) {
+        if (games.remove(game.getInvitingPlayer().id(), game)) {
+            activeGames.decrementAndGet();
+        }
+        games.remove(game.getInvitedPlayer().id(), game);
+        journal.gameEnded(game);
+    }
 
-        HangmanLayout hangmanLayout;
-        hangmanLayout = layout == 0 ? HangmanLayout.GALLOWS_1 : HangmanLayout.EXERCISE_1;
+    /**
+     * Gets the number of games being played.
+     *
+     * @return the number of active games
+     */
+    public int getActiveGameCount() {
+        return activeGames.get();
+    }
 
-        EmbedBuilder embed = new EmbedBuilder();
-        embed.setTitle("Hangman Game Invite");
+    /**
+     * Gets the queue depth of the game whose mailbox is deepest right now.
+     *
+     * @return the deepest queue depth of any game, or 0 if no game is being played
+     */
+    public int getDeepestQueueDepth() {
+        AtomicInteger deepest = new AtomicInteger();
+        games.forEach((playerID, booking) -> {
+            if (booking instanceof Game game) {
+                deepest.accumulateAndGet(game.getQueueDepth(), Math::max);
+            }
+        });
+        return deepest.get();
+    }
 
-        if (!isInGame(invitingPlayer) && !isInGame(invitedPlayer)) {
-            pendingInvites.put(invitedPlayer, new GameInvite(invitingPlayer, invitedPlayer, layout));
-            event.replyEmbeds(embed
-                    .setDescription(invitingPlayer.getAsMention() + " has invited " + invitedPlayer.getAsMention() + " to play a game!")
-                    .setFooter("Type /accept to join the game or /decline to decline the invite.")
-                    .addField("Layout:", layout == 0 ? "Gallows \uD83D\uDC80" : "Exercise \uD83C\uDFCB️\u200D♂️", false)
-                    .addField("", "```" + hangmanLayout.getLayout() + "```", false)
-                    .setColor(Color.GREEN).build()).queue();
-        } else {
-            event.replyEmbeds(embed
-                    .setDescription("You or " + invitedPlayer.getName() + " are already in a game.")
-                    .setColor(Color.RED).build()).setEphemeral(true).queue();
+    /**
+     * Gets the number of invites waiting for an answer.
+     *
+     * @return the number of pending invites
+     */
+    public int getPendingInviteCount() {
+        return pendingInvites.size();
+    }
+
+    /**
+     * Cancels the invite a player has sent, if it is still pending.
+     *
+     * @param invitingPlayerID the ID of the user who sent the invite
+     * @return the cancelled invite, or null if there was no pending invite to cancel
+     */
+    public GameInvite cancelInvite(long invitingPlayerID) {
+        GameInvite invite = sentInvites.get(invitingPlayerID);
+        if (invite == null || !invite.transition(GameInvite.State.PENDING, GameInvite.State.CANCELLED)) {
+            return null;
+        }
+        removeInvite(invite);
+        return invite;
+    }
+
+    /**
+     * Books both players of an accepted invite. If either one is already in a game, any booking made so far is rolled back.
+     *
+     * @param invite the invite whose players to book
+     * @return null if both players were booked, otherwise the player who is already in a game
+     */
+    private Player bookPlayers(GameInvite invite) {
+        long invitingPlayerID = invite.getInvitingPlayer().id();
+        long invitedPlayerID = invite.getInvitedPlayer().id();
+        if (games.putIfAbsent(invitingPlayerID, invite) != null) {
+            return invite.getInvitingPlayer();
+        }
+        if (invitedPlayerID != invitingPlayerID && games.putIfAbsent(invitedPlayerID, invite) != null) {
+            games.remove(invitingPlayerID, invite);
+            return invite.getInvitedPlayer();
         }
+        return null;
     }
 
-    public Map<User, Game> getGames() {
-        return games;
+    /**
+     * Makes a new invite, or an accepted invite whose game couldn't be created, pending. A newer invite may have
+     * replaced it in the meantime, which {@link #supersede} can't cancel while it isn't pending; such an invite is
+     * closed here instead.
+     *
+     * @param invite the invite
+     * @param from   the state the invite is in, {@link GameInvite.State#NEW} or {@link GameInvite.State#ACCEPTED}
+     */
+    private void publish(GameInvite invite, GameInvite.State from) {
+        invite.transition(from, GameInvite.State.PENDING);
+        boolean replaced = pendingInvites.get(invite.getInvitedPlayer().id()) != invite
+                || sentInvites.get(invite.getInvitingPlayer().id()) != invite;
+        if (replaced && invite.transition(GameInvite.State.PENDING, GameInvite.State.CANCELLED)) {
+            removeInvite(invite);
+        }
     }
 
-    public void removeGame(User invitingPlayer, User invitedPlayer) {
-        this.getGames().remove(invitingPlayer);
-        this.getGames().remove(invitedPlayer);
+    private void removeInvite(GameInvite invite) {
+        pendingInvites.remove(invite.getInvitedPlayer().id(), invite);
+        sentInvites.remove(invite.getInvitingPlayer().id(), invite);
+        journal.inviteClosed(invite);
     }
 
-    public void cancelInvite(User invitingPlayer) {
-        pendingInvites.remove(invitingPlayer);
+    private void restore() {
+        for (GameJournal.InviteRecord record : journal.getRecoveredInvites()) {
+            GameInvite invite = new GameInvite(record.invitingPlayer(), record.invitedPlayer(), record.layout());
+            pendingInvites.put(invite.getInvitedPlayer().id(), invite);
+            sentInvites.put(invite.getInvitingPlayer().id(), invite);
+            invite.transition(GameInvite.State.NEW, GameInvite.State.PENDING);
+        }
+        for (GameJournal.GameRecord record : journal.getRecoveredGames()) {
+            Game game = new Game(record, this);
+            games.put(game.getInvitingPlayer().id(), game);
+            games.put(game.getInvitedPlayer().id(), game);
+            activeGames.incrementAndGet();
+        }
     }
 
-    public String getInvitee(User invitingPlayer) {
-        return pendingInvites.get(invitingPlayer).getInvitedPlayer().getAsMention();
+    private void supersede(GameInvite previous) {
+        if (previous != null && previous.transition(GameInvite.State.PENDING, GameInvite.State.CANCELLED)) {
+            removeInvite(previous);
+        }
     }
 }
@@ -3,43 +3,147 @@
 
 package com.chalwk.game;
 
-import java.util.*;
-
+/**
+ * Letter indexing and rendering for the guesses of a game: the per-letter position masks of a word, its guess box and
+ * the list of guessed letters. The rules that use them live in {@link HangmanEngine}.
+ */
 public class Guess {
-    public static boolean getGuess(String character, Game game) {
-        char guess = character.charAt(0);
-        game.guesses.add(guess);
-        return game.getWordToGuess().contains(character);
-    }
-
-    public static String showGuesses(List<Character> guesses) {
-        Set<Character> uniqueGuesses = new HashSet<>(guesses);
-        List<Character> sortedGuesses = new ArrayList<>(new TreeSet<>(uniqueGuesses));
-        StringBuilder sb = new StringBuilder();
-        for (Character guess : sortedGuesses) {
-            sb.append(guess.toString().toUpperCase());
-            if (sortedGuesses.size() > 1) {
-                sb.append(", ");
+
+    /**
+     * The number of letters that can be guessed, 'a' through 'z'.
+     */
+    public static final int ALPHABET_SIZE = 26;
+
+    /**
+     * The number of characters one cell of the guess box takes up.
+     */
+    static final int CELL_WIDTH = 3;
+
+    /**
+     * The number of characters the code block fence on either side of the guess box takes up.
+     */
+    static final int FENCE_WIDTH = 3;
+
+    /**
+     * Renders the guessed letters in alphabetical order.
+     *
+     * @param guessedLetters the guessed-letter bitmask, bit 0 being 'a'
+     * @return the guessed letters as a comma separated, upper case list
+     */
+    public static String showGuesses(int guessedLetters) {
+        char[] buffer = new char[ALPHABET_SIZE * CELL_WIDTH];
+        return new String(buffer, 0, renderGuesses(guessedLetters, buffer));
+    }
+
+    /**
+     * Renders the guessed letters in alphabetical order into a buffer of at least {@code ALPHABET_SIZE * 3} characters.
+     *
+     * @param guessedLetters the guessed-letter bitmask, bit 0 being 'a'
+     * @param buffer         the buffer to render into
+     * @return the number of characters written
+     */
+    static int renderGuesses(int guessedLetters, char[] buffer) {
+        int length = 0;
+        for (int mask = guessedLetters; mask != 0; mask &= mask - 1) {
+            if (length > 0) {
+                buffer[length++] = ',';
+                buffer[length++] = ' ';
             }
+            buffer[length++] = (char) ('A' + Integer.numberOfTrailingZeros(mask));
         }
-        return sb.toString();
+        return length;
     }
 
+    /**
+     * Gets the rendered guess box of a game.
+     *
+     * @param game the game to render
+     * @return the guess box, wrapped in a code block
+     */
     public static String formatGuessBox(Game game) {
-        String word = game.getWordToGuess();
-        StringBuilder sb = new StringBuilder();
-        sb.append("```");
-        game.correctGuesses = 0;
+        return game.getGuessBox();
+    }
+
+    /**
+     * Allocates and fills the guess box buffer for a word, with only the non-letter characters revealed.
+     *
+     * @param word the word to render
+     * @return the guess box buffer
+     */
+    static char[] createGuessBox(String word) {
+        int length = word.length();
+        char[] buffer = new char[FENCE_WIDTH * 2 + length * CELL_WIDTH];
+        int pos = 0;
+        for (int i = 0; i < FENCE_WIDTH; i++) {
+            buffer[pos++] = '`';
+        }
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            buffer[pos++] = '〔';
+            buffer[pos++] = letterIndex(c) < 0 ? c : ' ';
+            buffer[pos++] = '〕';
+        }
+        for (int i = 0; i < FENCE_WIDTH; i++) {
+            buffer[pos++] = '`';
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes a letter into every cell of the guess box selected by a position mask.
+     *
+     * @param buffer    the guess box buffer
+     * @param letter    the letter to reveal
+     * @param positions the positions of the letter in the word
+     */
+    static void revealInGuessBox(char[] buffer, char letter, long positions) {
+        for (long mask = positions; mask != 0; mask &= mask - 1) {
+            buffer[FENCE_WIDTH + Long.numberOfTrailingZeros(mask) * CELL_WIDTH + 1] = letter;
+        }
+    }
+
+    /**
+     * Builds the position mask of every letter in a word.
+     * Bit {@code i} of {@code masks[letter]} is set when the word has that letter at index {@code i}.
+     *
+     * @param word the word to index, at most 64 characters long
+     * @return the position masks, indexed by letter
+     */
+    public static long[] letterPositions(String word) {
+        long[] masks = new long[ALPHABET_SIZE];
+        for (int i = 0; i < word.length(); i++) {
+            int letter = letterIndex(word.charAt(i));
+            if (letter >= 0) {
+                masks[letter] |= 1L << i;
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Counts the characters of a word that are not letters, such as hyphens, which are revealed from the start.
+     *
+     * @param word the word to check
+     * @return the number of non-letter characters
+     */
+    public static int countRevealedUpFront(String word) {
+        int count = 0;
         for (int i = 0; i < word.length(); i++) {
-            char guess = word.charAt(i);
-            if (game.guesses.contains(guess)) {
-                game.correctGuesses++;
-                sb.append("〔").append(guess).append("〕");
-            } else {
-                sb.append("〔 〕");
+            if (letterIndex(word.charAt(i)) < 0) {
+                count++;
             }
         }
-        sb.append("```");
-        return sb.toString();
+        return count;
+    }
+
+    /**
+     * Maps a character to its index in the alphabet.
+     *
+     * @param c the character to map
+     * @return the index of the letter, or -1 if the character is not a lower case letter
+     */
+    public static int letterIndex(char c) {
+        int letter = c - 'a';
+        return letter >= 0 && letter < ALPHABET_SIZE ? letter : -1;
     }
 }
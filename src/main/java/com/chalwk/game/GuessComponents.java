@@ -0,0 +1,96 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.interactions.components.LayoutComponent;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+import net.dv8tion.jda.api.interactions.components.selections.StringSelectMenu;
+import net.dv8tion.jda.api.interactions.components.text.TextInput;
+import net.dv8tion.jda.api.interactions.components.text.TextInputStyle;
+import net.dv8tion.jda.api.interactions.modals.Modal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the message components players guess through when the bot runs in component mode: two select menus
+ * holding the letters not guessed yet (A–M and N–Z) and a button that opens a modal to guess the whole word.
+ * <p>
+ * Every component ID ends with the ID of its game, so interactions with the embed of a game that has already
+ * ended can be told apart from interactions with the player's current game.
+ */
+public final class GuessComponents {
+
+    public static final String LETTERS_PREFIX = "hangman:letters:";
+    public static final String WORD_BUTTON_PREFIX = "hangman:word:";
+    public static final String WORD_MODAL_PREFIX = "hangman:word-modal:";
+    public static final String WORD_INPUT_ID = "word";
+
+    private static final int HALF_ALPHABET = Guess.ALPHABET_SIZE / 2;
+
+    private GuessComponents() {
+    }
+
+    /**
+     * Creates the component rows for the current state of a game.
+     *
+     * @param game the game
+     * @return the rows to attach to the game embed
+     */
+    public static List<LayoutComponent> createRows(Game game) {
+        List<LayoutComponent> rows = new ArrayList<>(3);
+        addLetterMenu(rows, game, 0, HALF_ALPHABET);
+        addLetterMenu(rows, game, HALF_ALPHABET, Guess.ALPHABET_SIZE);
+        rows.add(ActionRow.of(Button.primary(WORD_BUTTON_PREFIX + game.getGameID(), "Guess the word")));
+        return rows;
+    }
+
+    /**
+     * Creates the modal a player types a guess of the whole word into.
+     *
+     * @param gameID the ID of the game
+     * @return the modal
+     */
+    public static Modal createWordModal(long gameID) {
+        TextInput word = TextInput.create(WORD_INPUT_ID, "Word", TextInputStyle.SHORT)
+                .setRequired(true)
+                .setMaxLength(64)
+                .build();
+        return Modal.create(WORD_MODAL_PREFIX + gameID, "Guess the word")
+                .addActionRow(word)
+                .build();
+    }
+
+    /**
+     * Extracts the game ID from the ID of a component or modal created by this class.
+     *
+     * @param componentID the ID of the component
+     * @return the ID of the game, or 0 if the ID is malformed
+     */
+    public static long getGameID(String componentID) {
+        try {
+            return Long.parseLong(componentID.substring(componentID.lastIndexOf(':') + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Adds a select menu for the letters in {@code [from, to)} that have not been guessed yet.
+     * The menu is left out once every letter in its range has been guessed, as a menu can't be empty.
+     */
+    private static void addLetterMenu(List<LayoutComponent> rows, Game game, int from, int to) {
+        StringSelectMenu.Builder menu = StringSelectMenu.create(LETTERS_PREFIX + from + ":" + game.getGameID())
+                .setPlaceholder("Guess a letter (" + (char) ('A' + from) + "–" + (char) ('A' + to - 1) + ")");
+        for (int i = from; i < to; i++) {
+            if ((game.getEngine().getGuessedLetters() & (1 << i)) == 0) {
+                String letter = String.valueOf((char) ('a' + i));
+                menu.addOption(letter.toUpperCase(), letter);
+            }
+        }
+        if (!menu.getOptions().isEmpty()) {
+            rows.add(ActionRow.of(menu.build()));
+        }
+    }
+}
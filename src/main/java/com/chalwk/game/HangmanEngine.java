@@ -0,0 +1,208 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+/**
+ * The rules of a game of Hangman: the word, the letters guessed so far, the mistakes made and whose turn it is.
+ * <p>
+ * The engine knows nothing about Discord. {@link #applyGuess(CharSequence)} checks a guess, moves the state on and
+ * reports the outcome, which {@link Game} turns into embeds and messages. The guess path allocates nothing, so
+ * games can be played, benchmarked and stress-tested in bulk without JDA. An engine is not thread-safe; the guesses
+ * of a game must be applied one at a time.
+ */
+public final class HangmanEngine {
+
+    private final String word;
+    private final long[] letterPositions;
+    private final int maxMistakes;
+    private int mistakes;
+    private int guessedLetters;
+    private int correctGuesses;
+    private boolean invitingPlayersTurn;
+    private boolean over;
+
+    /**
+     * Creates the engine of a new game.
+     *
+     * @param word                 the word to guess, in lower case and at most 64 characters long
+     * @param maxMistakes          the number of mistakes that loses the game
+     * @param invitingPlayerStarts true if the inviting player makes the first guess
+     */
+    public HangmanEngine(String word, int maxMistakes, boolean invitingPlayerStarts) {
+        this(word, maxMistakes, invitingPlayerStarts, 0, 0);
+    }
+
+    /**
+     * Creates the engine of a game that is already under way, such as one recovered from the journal.
+     *
+     * @param word                the word to guess, in lower case and at most 64 characters long
+     * @param maxMistakes         the number of mistakes that loses the game
+     * @param invitingPlayersTurn true if it's the inviting player's turn
+     * @param guessedLetters      the guessed-letter bitmask, bit 0 being 'a'
+     * @param mistakes            the number of mistakes made so far
+     */
+    public HangmanEngine(String word, int maxMistakes, boolean invitingPlayersTurn, int guessedLetters, int mistakes) {
+        this.word = word;
+        this.letterPositions = Guess.letterPositions(word);
+        this.maxMistakes = maxMistakes;
+        this.invitingPlayersTurn = invitingPlayersTurn;
+        this.guessedLetters = guessedLetters;
+        this.mistakes = mistakes;
+        this.correctGuesses = Guess.countRevealedUpFront(word);
+        for (int mask = guessedLetters; mask != 0; mask &= mask - 1) {
+            correctGuesses += Long.bitCount(letterPositions[Integer.numberOfTrailingZeros(mask)]);
+        }
+    }
+
+    /**
+     * Plays a guess for the player whose turn it is. A single character is checked against the letters of the word
+     * and anything longer is taken as a guess of the whole word. A wrong letter or word is a mistake, and so is a
+     * wrong letter guessed again. Unless the guess won or lost the game, the turn passes to the other player.
+     *
+     * @param guess the letter or word guessed, in lower case and not empty
+     * @return the outcome of the guess
+     */
+    public Outcome applyGuess(CharSequence guess) {
+        if (over) {
+            return Outcome.OVER;
+        }
+
+        boolean hit;
+        if (guess.length() > 1) {
+            if (word.contentEquals(guess)) {
+                return finish(Outcome.WON);
+            }
+            hit = false;
+        } else {
+            hit = guessLetter(guess.charAt(0));
+        }
+
+        if (!hit && ++mistakes >= maxMistakes) {
+            return finish(Outcome.LOST);
+        }
+        if (correctGuesses == word.length()) {
+            return finish(Outcome.WON);
+        }
+        invitingPlayersTurn = !invitingPlayersTurn;
+        return hit ? Outcome.HIT : Outcome.MISS;
+    }
+
+    private boolean guessLetter(char character) {
+        int letter = Guess.letterIndex(character);
+        if (letter < 0) {
+            return false;
+        }
+
+        long positions = letterPositions[letter];
+        int bit = 1 << letter;
+        if ((guessedLetters & bit) == 0) {
+            guessedLetters |= bit;
+            correctGuesses += Long.bitCount(positions);
+        }
+        return positions != 0;
+    }
+
+    private Outcome finish(Outcome outcome) {
+        over = true;
+        return outcome;
+    }
+
+    /**
+     * Gets the word to guess.
+     *
+     * @return the word to guess
+     */
+    public String getWord() {
+        return word;
+    }
+
+    /**
+     * Gets the positions of a letter in the word.
+     *
+     * @param letter the index of the letter, 0 being 'a'
+     * @return a mask with bit {@code i} set when the word has the letter at index {@code i}
+     */
+    public long getLetterPositions(int letter) {
+        return letterPositions[letter];
+    }
+
+    /**
+     * Gets the letters guessed so far.
+     *
+     * @return the guessed-letter bitmask, bit 0 being 'a'
+     */
+    public int getGuessedLetters() {
+        return guessedLetters;
+    }
+
+    /**
+     * Gets the number of characters of the word that have been revealed, including those shown from the start.
+     *
+     * @return the number of revealed characters
+     */
+    public int getCorrectGuesses() {
+        return correctGuesses;
+    }
+
+    /**
+     * Gets the number of mistakes made so far.
+     *
+     * @return the number of mistakes
+     */
+    public int getMistakes() {
+        return mistakes;
+    }
+
+    /**
+     * Gets the number of mistakes that loses the game.
+     *
+     * @return the maximum number of mistakes
+     */
+    public int getMaxMistakes() {
+        return maxMistakes;
+    }
+
+    /**
+     * Checks whose turn it is.
+     *
+     * @return true if it's the inviting player's turn, false if it's the invited player's
+     */
+    public boolean isInvitingPlayersTurn() {
+        return invitingPlayersTurn;
+    }
+
+    /**
+     * Checks if a guess has won or lost the game.
+     *
+     * @return true if the game is over
+     */
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * The outcome of a guess.
+     */
+    public enum Outcome {
+        /**
+         * The letter is in the word, and the game goes on.
+         */
+        HIT,
+        /**
+         * The letter or word is wrong, and the game goes on.
+         */
+        MISS,
+        /**
+         * The guess revealed the last letter or named the word.
+         */
+        WON,
+        /**
+         * The guess was the last mistake allowed.
+         */
+        LOST,
+        /**
+         * The game was already over, and the guess changed nothing.
+         */
+        OVER
+    }
+}
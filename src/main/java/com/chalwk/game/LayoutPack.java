@@ -0,0 +1,121 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.util.List;
+
+/**
+ * A hangman drawing style: the picture shown for every number of mistakes, from none up to the one that loses the game.
+ * <p>
+ * A pack with {@code n} stages allows {@code n - 1} mistakes unless it sets its own limit, which may be one higher
+ * for packs without a picture of a lost game. Mistakes past the last stage show the last stage, which also previews
+ * the pack. Stages are wrapped in embed fields once when the pack is loaded, so looking one up is a single array access.
+ */
+public final class LayoutPack {
+
+    private final int id;
+    private final String name;
+    private final String title;
+    private final String[] stages;
+    private final int maxMistakes;
+    private final MessageEmbed.Field[] stageFields;
+    private final List<MessageEmbed.Field> inviteFields;
+
+    LayoutPack(int id, String name, String title, List<String> stages, int maxMistakes) {
+        if (stages.size() < 2) {
+            throw new IllegalArgumentException("Layout pack " + name + " needs at least 2 stages");
+        }
+        if (maxMistakes < stages.size() - 1 || maxMistakes > stages.size()) {
+            throw new IllegalArgumentException("Layout pack " + name + " has " + stages.size() + " stages and can't allow "
+                    + maxMistakes + " mistakes");
+        }
+        this.id = id;
+        this.name = name;
+        this.title = title;
+        this.maxMistakes = maxMistakes;
+        this.stages = stages.toArray(new String[0]);
+        this.stageFields = new MessageEmbed.Field[this.stages.length];
+        for (int i = 0; i < this.stages.length; i++) {
+            stageFields[i] = new MessageEmbed.Field("Stage: ", "```" + this.stages[i] + "```", false);
+        }
+        this.inviteFields = List.of(
+                new MessageEmbed.Field("Layout:", title, false),
+                new MessageEmbed.Field("", "```" + getPreview() + "```", false));
+    }
+
+    /**
+     * Gets the ID of the pack, as stored with games and invites.
+     *
+     * @return the ID of the pack
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of the pack, as offered by the invite command.
+     *
+     * @return the name of the pack
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the title of the pack, as shown in the invite embed.
+     *
+     * @return the title of the pack
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the number of mistakes that lose a game played with this pack.
+     *
+     * @return the maximum number of mistakes
+     */
+    public int getMaxMistakes() {
+        return maxMistakes;
+    }
+
+    /**
+     * Gets the picture for a number of mistakes.
+     *
+     * @param mistakes the number of mistakes, from 0 to {@link #getMaxMistakes()}
+     * @return the picture
+     */
+    public String getStage(int mistakes) {
+        return stages[Math.min(mistakes, stages.length - 1)];
+    }
+
+    /**
+     * Gets the picture for a number of mistakes, wrapped in a code block as the "Stage" field of the game embed.
+     *
+     * @param mistakes the number of mistakes, from 0 to {@link #getMaxMistakes()}
+     * @return the stage field
+     */
+    public MessageEmbed.Field getStageField(int mistakes) {
+        return stageFields[Math.min(mistakes, stageFields.length - 1)];
+    }
+
+    /**
+     * Gets the picture of the most mistakes, used to preview the pack.
+     *
+     * @return the last stage
+     */
+    public String getPreview() {
+        return stages[stages.length - 1];
+    }
+
+    /**
+     * Gets the layout name and preview fields of the invite embed.
+     *
+     * @return the invite fields
+     */
+    public List<MessageEmbed.Field> getInviteFields() {
+        return inviteFields;
+    }
+}
@@ -0,0 +1,106 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import com.chalwk.util.Logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The layout packs available to games, loaded once from the {@code layouts} resource directory.
+ * <p>
+ * {@code layouts/index.txt} lists the pack files in the order of their IDs. A pack file starts with
+ * {@code name:} and {@code title:} headers and an optional {@code mistakes:} limit, followed by its stages, each
+ * introduced by a line starting with {@code #}. Within a stage, a line starting with a backslash has it removed, so
+ * {@code \#} draws a line starting with {@code #} and {@code \\} one starting with a backslash. Adding a style only
+ * takes a new pack file and a line in the index.
+ */
+public final class LayoutRegistry {
+
+    private static final String DIRECTORY = "layouts/";
+    private static final List<LayoutPack> PACKS = load();
+
+    private LayoutRegistry() {
+    }
+
+    /**
+     * Gets every layout pack, in the order of their IDs.
+     *
+     * @return the layout packs
+     */
+    public static List<LayoutPack> getPacks() {
+        return PACKS;
+    }
+
+    /**
+     * Gets a layout pack by ID. Unknown IDs fall back to the first pack.
+     *
+     * @param id the ID of the pack
+     * @return the layout pack
+     */
+    public static LayoutPack get(int id) {
+        return id >= 0 && id < PACKS.size() ? PACKS.get(id) : PACKS.get(0);
+    }
+
+    private static List<LayoutPack> load() {
+        List<LayoutPack> packs = new ArrayList<>();
+        try {
+            for (String line : readLines(DIRECTORY + "index.txt")) {
+                String file = line.trim();
+                if (!file.isEmpty() && !file.startsWith("#")) {
+                    packs.add(parse(packs.size(), file, readLines(DIRECTORY + file)));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.severe("Failed to load layout packs: {}", e.getMessage());
+        }
+        if (packs.isEmpty()) {
+            throw new IllegalStateException("No layout packs found in " + DIRECTORY);
+        }
+        return List.copyOf(packs);
+    }
+
+    private static LayoutPack parse(int id, String file, List<String> lines) {
+        String name = file;
+        String title = null;
+        int maxMistakes = -1;
+        List<String> stages = new ArrayList<>();
+        StringBuilder stage = null;
+        for (String line : lines) {
+            if (line.startsWith("#")) {
+                if (stage != null) {
+                    stages.add(stage.toString());
+                }
+                stage = new StringBuilder();
+            } else if (stage != null) {
+                stage.append(line.startsWith("\\") ? line.substring(1) : line).append('\n');
+            } else if (line.startsWith("name:")) {
+                name = line.substring("name:".length()).trim();
+            } else if (line.startsWith("title:")) {
+                title = line.substring("title:".length()).trim();
+            } else if (line.startsWith("mistakes:")) {
+                maxMistakes = Integer.parseInt(line.substring("mistakes:".length()).trim());
+            }
+        }
+        if (stage != null) {
+            stages.add(stage.toString());
+        }
+        return new LayoutPack(id, name, title == null ? name : title, stages, maxMistakes < 0 ? stages.size() - 1 : maxMistakes);
+    }
+
+    private static List<String> readLines(String resource) throws IOException {
+        InputStream in = LayoutRegistry.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Resource not found: " + resource);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
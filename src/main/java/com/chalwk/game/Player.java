@@ -0,0 +1,27 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+
+package com.chalwk.game;
+
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * A detached snapshot of a Discord user taking part in a game or invite.
+ * Holds only the snowflake ID and the pre-rendered strings the bot displays, so games don't pin JDA cache entities.
+ *
+ * @param id      the user's snowflake ID
+ * @param name    the user's name
+ * @param mention the user's mention, e.g. {@code <@1234>}
+ */
+public record Player(long id, String name, String mention) {
+
+    /**
+     * Takes a snapshot of a user.
+     *
+     * @param user the user to take a snapshot of
+     * @return the player
+     */
+    public static Player of(User user) {
+        return new Player(user.getIdLong(), user.getName(), user.getAsMention());
+    }
+}
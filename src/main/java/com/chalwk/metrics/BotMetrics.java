@@ -0,0 +1,107 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.metrics;
+
+import com.chalwk.game.GameManager;
+import com.chalwk.game.HangmanEngine;
+import com.chalwk.util.EmbedEditCoalescer;
+import com.chalwk.util.Logging.Logger;
+import com.chalwk.util.Mailbox;
+import com.chalwk.util.MessageDeleteBatcher;
+import com.chalwk.util.TimingWheel;
+
+/**
+ * The metrics the bot records, registered once in the shared {@link MetricsRegistry} so the code that records them
+ * only touches a {@link Counter} or {@link Histogram}.
+ */
+public final class BotMetrics {
+
+    /**
+     * Time from receiving a guess message to the game having played it, including the wait in the game's mailbox.
+     */
+    public static final Histogram MESSAGE_GUESS = guessHistogram("messages");
+
+    /**
+     * Time from receiving a guess component or modal to the game having played it, including the wait in the
+     * game's mailbox.
+     */
+    public static final Histogram COMPONENT_GUESS = guessHistogram("components");
+
+    /**
+     * Time from sending a game embed edit to Discord confirming it.
+     */
+    public static final Histogram EMBED_EDIT = MetricsRegistry.getShared().histogram("hangman_embed_edit_duration_seconds",
+            "Round-trip time of game embed edits.");
+
+    /**
+     * How late the timing wheel runs its tasks.
+     */
+    public static final Histogram SCHEDULER_LAG = MetricsRegistry.getShared().histogram("hangman_scheduler_lag_seconds",
+            "Delay between the deadline of a scheduled task and the timing wheel running it.");
+
+    private static final Counter[] GUESSES = new Counter[HangmanEngine.Outcome.values().length];
+
+    static {
+        for (HangmanEngine.Outcome outcome : HangmanEngine.Outcome.values()) {
+            GUESSES[outcome.ordinal()] = MetricsRegistry.getShared().counter("hangman_guesses_total",
+                    "Guesses played, by outcome.", "outcome", outcome.name().toLowerCase());
+        }
+    }
+
+    private BotMetrics() {
+    }
+
+    /**
+     * Gets the histogram of the handling time of a slash command.
+     *
+     * @param path the full command path, such as {@code settings layout}
+     * @return the histogram
+     */
+    public static Histogram commandDuration(String path) {
+        return MetricsRegistry.getShared().histogram("hangman_command_duration_seconds",
+                "Time spent handling slash commands.", "command", path);
+    }
+
+    /**
+     * Counts a played guess.
+     *
+     * @param outcome the outcome of the guess
+     */
+    public static void guessPlayed(HangmanEngine.Outcome outcome) {
+        GUESSES[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Registers the gauges read from the game manager and the shared utilities.
+     *
+     * @param gameManager the game manager of the bot
+     */
+    public static void registerGauges(GameManager gameManager) {
+        MetricsRegistry registry = MetricsRegistry.getShared();
+        registry.gauge("hangman_active_games", "Games being played.", gameManager::getActiveGameCount);
+        registry.gauge("hangman_pending_invites", "Invites waiting for an answer.", gameManager::getPendingInviteCount);
+        registry.gauge("hangman_mailbox_depth", "Events waiting or running in all game mailboxes.", Mailbox::getTotalDepth);
+        registry.gauge("hangman_mailbox_max_depth", "Deepest any single game mailbox has been since the last scrape.",
+                Mailbox::takeMaxDepth);
+        registry.gauge("hangman_game_mailbox_depth", "Events waiting or running in the deepest game mailbox right now.",
+                gameManager::getDeepestQueueDepth);
+        registry.counter("hangman_mailbox_events_total", "Events run by the game mailboxes.", Mailbox::getProcessedCount);
+        registry.gauge("hangman_scheduled_tasks", "Tasks waiting on the timing wheel.",
+                () -> TimingWheel.getShared().getPendingCount());
+        registry.gauge("hangman_message_deletes_queued", "Guess messages waiting to be deleted.",
+                () -> MessageDeleteBatcher.getShared().getQueueDepth());
+        registry.counter("hangman_message_delete_flushes_total", "Delete requests sent for queued guess messages.",
+                () -> MessageDeleteBatcher.getShared().getFlushCount());
+        registry.counter("hangman_embed_edits_submitted_total", "Game embed states submitted for display.",
+                EmbedEditCoalescer::getSubmittedCount);
+        registry.counter("hangman_embed_edits_sent_total", "Game embed edits sent to Discord after coalescing.",
+                EmbedEditCoalescer::getSentCount);
+        registry.counter("hangman_log_records_dropped_total", "Log records dropped because the log buffer was full.",
+                Logger::getDroppedCount);
+    }
+
+    private static Histogram guessHistogram(String mode) {
+        return MetricsRegistry.getShared().histogram("hangman_guess_duration_seconds",
+                "Time from receiving a guess to the game having played it.", "mode", mode);
+    }
+}
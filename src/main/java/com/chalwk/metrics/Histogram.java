@@ -0,0 +1,67 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with a fixed set of buckets, from half a millisecond to ten seconds.
+ * <p>
+ * Its memory doesn't grow with the number of observations: recording a duration finds its bucket in a short
+ * array of bounds and increments the bucket's striped counter, without locks or allocation.
+ */
+public final class Histogram {
+
+    /**
+     * The upper bounds of the buckets, in nanoseconds. A last, unbounded bucket holds everything above them.
+     */
+    static final long[] BOUNDS = {
+            500_000L, 1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L, 100_000_000L,
+            250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS.length && nanos > BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since a start time.
+     *
+     * @param startNanos the start time, as returned by {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of observations in a bucket.
+     *
+     * @param bucket the index of the bucket; {@code BOUNDS.length} is the unbounded one
+     * @return the number of observations
+     */
+    long getBucketCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    long getSumNanos() {
+        return sumNanos.sum();
+    }
+}
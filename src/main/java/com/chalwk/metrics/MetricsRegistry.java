@@ -0,0 +1,201 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics of the bot, by name and labels, and their rendering in the Prometheus text format.
+ * <p>
+ * Registering is the slow path: it takes a lock, so code on a hot path registers its metrics once and keeps them.
+ * Recording into a {@link Counter} or {@link Histogram} never touches the registry. Gauges and counters whose value
+ * already lives elsewhere, like the size of a map, are registered as functions and only read when scraped.
+ * <p>
+ * Labels are given as name and value pairs. Registering the same name and labels again returns the existing counter
+ * or histogram, and replaces the existing function.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry SHARED = new MetricsRegistry();
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Gets the registry shared by the whole bot.
+     *
+     * @return the shared registry
+     */
+    public static MetricsRegistry getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name   the metric name
+     * @param help   the description shown with the metric
+     * @param labels the label names and values
+     * @return the counter
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) register(name, help, Type.COUNTER, labels, null);
+    }
+
+    /**
+     * Gets or creates a latency histogram.
+     *
+     * @param name   the metric name, ending in {@code _seconds}
+     * @param help   the description shown with the metric
+     * @param labels the label names and values
+     * @return the histogram
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) register(name, help, Type.HISTOGRAM, labels, null);
+    }
+
+    /**
+     * Registers a counter kept elsewhere, read when scraped.
+     *
+     * @param name   the metric name
+     * @param help   the description shown with the metric
+     * @param value  reads the count
+     * @param labels the label names and values
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.COUNTER, labels, value);
+    }
+
+    /**
+     * Registers a gauge, read when scraped.
+     *
+     * @param name   the metric name
+     * @param help   the description shown with the metric
+     * @param value  reads the current value
+     * @param labels the label names and values
+     */
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.GAUGE, labels, value);
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     *
+     * @return the scrape output
+     */
+    public String scrape() {
+        List<Family> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(families.size());
+            for (Family family : families.values()) {
+                snapshot.add(family.copy());
+            }
+        }
+
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : snapshot) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.name().toLowerCase()).append('\n');
+            family.series.forEach((labels, metric) -> {
+                if (metric instanceof Histogram histogram) {
+                    writeHistogram(out, family.name, labels, histogram);
+                } else {
+                    long value = metric instanceof Counter counter ? counter.get() : ((LongSupplier) metric).getAsLong();
+                    writeSample(out, family.name, labels, Long.toString(value));
+                }
+            });
+        }
+        return out.toString();
+    }
+
+    private synchronized Object register(String name, String help, Type type, String[] labels, LongSupplier function) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        String key = formatLabels(labels);
+        if (function != null) {
+            family.series.put(key, function);
+            return function;
+        }
+        return family.series.computeIfAbsent(key, k -> type == Type.HISTOGRAM ? new Histogram() : new Counter());
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String labels, Histogram histogram) {
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i <= Histogram.BOUNDS.length; i++) {
+            cumulative += histogram.getBucketCount(i);
+            String bound = i < Histogram.BOUNDS.length ? seconds(Histogram.BOUNDS[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(separator).append("le=\"").append(bound).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        writeSample(out, name + "_sum", labels, seconds(histogram.getSumNanos()));
+        writeSample(out, name + "_count", labels, Long.toString(cumulative));
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, String value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            for (char c : labels[i + 1].toCharArray()) {
+                switch (c) {
+                    case '\\' -> text.append("\\\\");
+                    case '"' -> text.append("\\\"");
+                    case '\n' -> text.append("\\n");
+                    default -> text.append(c);
+                }
+            }
+            text.append('"');
+        }
+        return text.toString();
+    }
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    /**
+     * The series of one metric name, by their rendered labels.
+     */
+    private static final class Family {
+
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> series = new LinkedHashMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        private Family copy() {
+            Family copy = new Family(name, help, type);
+            copy.series.putAll(series);
+            return copy;
+        }
+    }
+}
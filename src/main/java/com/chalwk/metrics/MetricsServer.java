@@ -0,0 +1,70 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.metrics;
+
+import com.chalwk.util.Logging.Logger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the shared {@link MetricsRegistry} over HTTP at {@code /metrics}, for Prometheus to scrape.
+ * <p>
+ * The endpoint is off unless the {@code hangman.metrics.port} system property is set. It listens on the loopback
+ * address by default; {@code hangman.metrics.host} binds it elsewhere. Requests are answered on a single daemon thread.
+ */
+public final class MetricsServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private MetricsServer() {
+    }
+
+    /**
+     * Starts the endpoint if a port is configured.
+     *
+     * @return the server, or null if the endpoint is off or couldn't be started
+     */
+    public static HttpServer startIfEnabled() {
+        Integer port = Integer.getInteger("hangman.metrics.port");
+        if (port == null) {
+            return null;
+        }
+        String host = System.getProperty("hangman.metrics.host", "127.0.0.1");
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(host, port), 0);
+            server.createContext("/metrics", MetricsServer::handle);
+            server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hangman-metrics");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            server.start();
+            Logger.info("Serving metrics on http://{}:{}/metrics", host, port);
+            return server;
+        } catch (IOException e) {
+            Logger.warning("Failed to start the metrics endpoint on port {}: {}", port, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = MetricsRegistry.getShared().scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.chalwk.bot.BotInitializer.getShardManager;
+
+/**
+ * Holds the Hangman channel configured for each guild.
+ * <p>
+ * Lookups are served from memory without touching the disk. Changes are written behind: the first change
+ * schedules a flush a short moment later, and every change made until then goes out with it in a single
+ * atomic rename of {@code channels.txt} in the data directory.
+ * <p>
+ * Before there was a channel per guild, the bot kept a single channel for every guild in {@code config.txt}. When
+ * there is no {@code channels.txt} yet, that channel is migrated once as the default channel, used by every guild
+ * that hasn't configured its own, exactly as it was used before.
+ */
+public class ChannelRegistry {
+
+    private static final String FILE_NAME = "channels.txt";
+    private static final String LEGACY_FILE_NAME = "config.txt";
+    private static final String DEFAULT_KEY = "default";
+    private static final long FLUSH_DELAY_MILLIS = 2000;
+
+    private final ConcurrentLongMap<Long> channels = new ConcurrentLongMap<>();
+    private volatile long defaultChannelID;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hangman-channel-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Path file;
+
+    /**
+     * Creates the registry and loads the channels saved in the data directory, or migrates the channel of the old
+     * {@code config.txt} if none have been saved yet.
+     */
+    public ChannelRegistry() {
+        try {
+            file = FileIO.getDataDirectory().resolve(FILE_NAME);
+            if (Files.exists(file)) {
+                load(file);
+            } else {
+                migrateLegacyChannel();
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (flushScheduled.get()) {
+                    flush();
+                }
+            }, "hangman-channel-flush"));
+        } catch (IOException e) {
+            Logger.warning("Failed to load channels: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the channel configured for a guild, or the default channel if the guild hasn't configured its own.
+     *
+     * @param guildID the ID of the guild
+     * @return the ID of the channel, or 0 if the guild has no channel configured and there is no default
+     */
+    public long getChannelID(long guildID) {
+        Long channelID = channels.get(guildID);
+        return channelID != null ? channelID : defaultChannelID;
+    }
+
+    /**
+     * Checks if a channel is the one configured for a guild.
+     *
+     * @param guildID   the ID of the guild
+     * @param channelID the ID of the channel
+     * @return true if the channel is configured for the guild, false otherwise
+     */
+    public boolean isConfigured(long guildID, long channelID) {
+        return channelID != 0 && getChannelID(guildID) == channelID;
+    }
+
+    /**
+     * Configures the channel of a guild, replacing any channel configured before.
+     *
+     * @param guildID   the ID of the guild
+     * @param channelID the ID of the channel
+     */
+    public void setChannel(long guildID, long channelID) {
+        channels.put(guildID, channelID);
+        scheduleFlush();
+    }
+
+    /**
+     * Removes the channel configuration of a guild. A guild that only uses the default channel removes the default
+     * if it is one of the guild's own channels; any other guild leaves it alone.
+     *
+     * @param guildID the ID of the guild
+     */
+    public void removeChannel(long guildID) {
+        if (channels.remove(guildID) != null) {
+            scheduleFlush();
+            return;
+        }
+        long defaultChannel = defaultChannelID;
+        if (defaultChannel != 0 && isChannelOf(guildID, defaultChannel)) {
+            defaultChannelID = 0;
+            scheduleFlush();
+        }
+    }
+
+    private static boolean isChannelOf(long guildID, long channelID) {
+        GuildChannel channel = getShardManager().getGuildChannelById(channelID);
+        return channel != null && channel.getGuild().getIdLong() == guildID;
+    }
+
+    private void scheduleFlush() {
+        if (file != null && flushScheduled.compareAndSet(false, true)) {
+            TimingWheel.getShared().schedule(() -> writer.execute(this::flush), FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void flush() {
+        // Clear the flag first so that a change made while the snapshot is taken schedules another flush.
+        flushScheduled.set(false);
+        StringBuilder sb = new StringBuilder();
+        long defaultChannel = defaultChannelID;
+        if (defaultChannel != 0) {
+            sb.append(DEFAULT_KEY).append('=').append(defaultChannel).append('\n');
+        }
+        channels.forEach((guildID, channelID) -> sb.append(guildID).append('=').append(channelID).append('\n'));
+        try {
+            FileIO.writeAtomically(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Logger.warning("Failed to save channels: {}", e.getMessage());
+        }
+    }
+
+    private void load(Path path) throws IOException {
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            try {
+                String key = line.substring(0, separator).trim();
+                long channelID = Long.parseLong(line.substring(separator + 1).trim());
+                if (key.equals(DEFAULT_KEY)) {
+                    defaultChannelID = channelID;
+                } else {
+                    channels.put(Long.parseLong(key), channelID);
+                }
+            } catch (NumberFormatException e) {
+                Logger.warning("Skipping malformed channel entry: {}", line);
+            }
+        }
+    }
+
+    /**
+     * Reads the single channel of the old {@code config.txt}, from the working directory or the classpath where the
+     * bot used to keep it, and saves it as the default channel right away so the migration only happens once.
+     */
+    private void migrateLegacyChannel() throws IOException {
+        String legacy = readLegacyChannel();
+        if (legacy == null) {
+            return;
+        }
+        try {
+            defaultChannelID = Long.parseLong(legacy);
+        } catch (NumberFormatException e) {
+            Logger.warning("Skipping malformed channel in {}: {}", LEGACY_FILE_NAME, legacy);
+            return;
+        }
+        flush();
+        Logger.info("Migrated channel {} from {} as the default channel", legacy, LEGACY_FILE_NAME);
+    }
+
+    private static String readLegacyChannel() throws IOException {
+        Path path = Paths.get(LEGACY_FILE_NAME);
+        InputStream in = Files.exists(path) ? Files.newInputStream(path)
+                : ChannelRegistry.class.getClassLoader().getResourceAsStream(LEGACY_FILE_NAME);
+        if (in == null) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().map(String::trim).filter(line -> !line.isEmpty()).findFirst().orElse(null);
+        }
+    }
+}
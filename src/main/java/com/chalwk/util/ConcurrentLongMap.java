@@ -0,0 +1,334 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A concurrent map from primitive {@code long} keys, such as Discord snowflake IDs, to objects.
+ * <p>
+ * Entries live in open-addressing tables with linear probing, split into independently locked segments.
+ * Reads are optimistic and don't take a lock unless they race with a write to the same segment, and writes to
+ * different segments never block each other. Keys are never boxed. The key {@code 0} is reserved to mark
+ * empty slots and can't be stored.
+ *
+ * @param <V> the type of the values
+ */
+public final class ConcurrentLongMap<V> {
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENT_COUNT);
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongMap() {
+        segments = (Segment<V>[]) new Segment<?>[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+
+    /**
+     * Gets the value mapped to a key.
+     *
+     * @param key the key to look up
+     * @return the value, or null if the key is not mapped
+     */
+    public V get(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Checks if a key is mapped.
+     *
+     * @param key the key to look up
+     * @return true if the key is mapped, false otherwise
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     *
+     * @param key   the key, not 0
+     * @param value the value, not null
+     * @return the previous value, or null if the key was not mapped
+     */
+    public V put(long key, V value) {
+        checkKey(key);
+        long hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, false);
+    }
+
+    /**
+     * Maps a key to a value unless it is already mapped.
+     *
+     * @param key   the key, not 0
+     * @param value the value, not null
+     * @return the current value if the key was already mapped, or null if the value was stored
+     */
+    public V putIfAbsent(long key, V value) {
+        checkKey(key);
+        long hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    /**
+     * Removes the mapping of a key.
+     *
+     * @param key the key to remove
+     * @return the removed value, or null if the key was not mapped
+     */
+    public V remove(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, hash, null);
+    }
+
+    /**
+     * Removes the mapping of a key only if it is mapped to the given value.
+     *
+     * @param key   the key to remove
+     * @param value the expected value, compared by identity
+     * @return true if the mapping was removed, false otherwise
+     */
+    public boolean remove(long key, V value) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, hash, value) != null;
+    }
+
+    /**
+     * Calls an action for every mapping. Each segment is copied before the action is called for its entries, so the
+     * action sees a consistent view of one segment at a time but not of the whole map, and may freely read or write
+     * the map itself.
+     *
+     * @param action the action to call
+     */
+    public void forEach(LongObjectConsumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    /**
+     * Gets the number of mappings.
+     *
+     * @return the number of mappings
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * An action taking a primitive long key and a value.
+     *
+     * @param <V> the type of the values
+     */
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * The keys and values of a segment, swapped as one reference on resize so that optimistic readers always
+     * see a matching pair of arrays.
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment<V> {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(INITIAL_CAPACITY);
+        private volatile int size;
+
+        private static int indexOf(Table table, long key, long hash) {
+            int index = (int) hash & table.mask;
+            for (int probes = 0; probes <= table.mask; probes++) {
+                long current = table.keys[index];
+                if (current == key) {
+                    return index;
+                } else if (current == EMPTY) {
+                    return -1;
+                }
+                index = (index + 1) & table.mask;
+            }
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Table t = table;
+                int index = indexOf(t, key, hash);
+                Object value = index < 0 ? null : t.values[index];
+                if (lock.validate(stamp)) {
+                    return (V) value;
+                }
+            }
+
+            stamp = lock.readLock();
+            try {
+                Table t = table;
+                int index = indexOf(t, key, hash);
+                return index < 0 ? null : (V) t.values[index];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private V put(long key, long hash, V value, boolean onlyIfAbsent) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int index = (int) hash & t.mask;
+                while (t.keys[index] != EMPTY) {
+                    if (t.keys[index] == key) {
+                        V previous = (V) t.values[index];
+                        if (!onlyIfAbsent) {
+                            t.values[index] = value;
+                        }
+                        return previous;
+                    }
+                    index = (index + 1) & t.mask;
+                }
+                t.keys[index] = key;
+                t.values[index] = value;
+                size++;
+                if (size * 4 > t.keys.length * 3) {
+                    resize(t.keys.length * 2);
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private V remove(long key, long hash, V expected) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int index = indexOf(t, key, hash);
+                if (index < 0 || (expected != null && t.values[index] != expected)) {
+                    return null;
+                }
+                V previous = (V) t.values[index];
+                deleteAt(t, index);
+                size--;
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Empties a slot and shifts later entries of the same probe run back, so lookups never need tombstones.
+         */
+        private void deleteAt(Table t, int index) {
+            int gap = index;
+            int next = (gap + 1) & t.mask;
+            while (t.keys[next] != EMPTY) {
+                int home = (int) hash(t.keys[next]) & t.mask;
+                // Move the entry into the gap unless its home slot lies cyclically after the gap.
+                if (((next - home) & t.mask) >= ((next - gap) & t.mask)) {
+                    t.keys[gap] = t.keys[next];
+                    t.values[gap] = t.values[next];
+                    gap = next;
+                }
+                next = (next + 1) & t.mask;
+            }
+            t.keys[gap] = EMPTY;
+            t.values[gap] = null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void forEach(LongObjectConsumer<? super V> action) {
+            Table copy = snapshot();
+            for (int i = 0; i < copy.keys.length; i++) {
+                if (copy.keys[i] != EMPTY) {
+                    action.accept(copy.keys[i], (V) copy.values[i]);
+                }
+            }
+        }
+
+        /**
+         * Copies the table, optimistically first, so that callers can walk the entries without holding the lock.
+         */
+        private Table snapshot() {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Table copy = copyOf(table);
+                if (lock.validate(stamp)) {
+                    return copy;
+                }
+            }
+
+            stamp = lock.readLock();
+            try {
+                return copyOf(table);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static Table copyOf(Table t) {
+            Table copy = new Table(t.keys.length);
+            System.arraycopy(t.keys, 0, copy.keys, 0, t.keys.length);
+            System.arraycopy(t.values, 0, copy.values, 0, t.values.length);
+            return copy;
+        }
+
+        private void resize(int capacity) {
+            Table old = table;
+            Table resized = new Table(capacity);
+            for (int i = 0; i < old.keys.length; i++) {
+                long key = old.keys[i];
+                if (key != EMPTY) {
+                    int index = (int) hash(key) & resized.mask;
+                    while (resized.keys[index] != EMPTY) {
+                        index = (index + 1) & resized.mask;
+                    }
+                    resized.keys[index] = key;
+                    resized.values[index] = old.values[i];
+                }
+            }
+            table = resized;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import com.chalwk.metrics.BotMetrics;
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Sends the edits of one message embed so that at most one edit is in flight and only the latest state waits.
+ * <p>
+ * While an edit is in flight, including while JDA holds it back for a rate limit, newer states overwrite each other
+ * in a single slot, and only the last one is sent once the edit completes. Intermediate board states that nobody
+ * would get to see are never sent.
+ */
+public final class EmbedEditCoalescer {
+
+    private static final LongAdder SUBMITTED = new LongAdder();
+    private static final LongAdder SENT = new LongAdder();
+
+    private final Function<MessageEmbed, RestAction<?>> sender;
+    private MessageEmbed pending;
+    private boolean inFlight;
+
+    /**
+     * Creates a coalescer for one message.
+     *
+     * @param sender creates the edit request for an embed, or returns null if the message can't be edited yet
+     */
+    public EmbedEditCoalescer(Function<MessageEmbed, RestAction<?>> sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Gets the number of embed states submitted by every coalescer.
+     *
+     * @return the number of submitted states
+     */
+    public static long getSubmittedCount() {
+        return SUBMITTED.sum();
+    }
+
+    /**
+     * Gets the number of edits sent to Discord by every coalescer.
+     *
+     * @return the number of sent edits
+     */
+    public static long getSentCount() {
+        return SENT.sum();
+    }
+
+    /**
+     * Submits a new state of the embed. It is sent right away if no edit is in flight, and otherwise replaces
+     * whatever state was waiting for the edit in flight to complete.
+     *
+     * @param embed the new state of the embed
+     */
+    public void submit(MessageEmbed embed) {
+        SUBMITTED.increment();
+        synchronized (this) {
+            pending = embed;
+            if (inFlight) {
+                return;
+            }
+            inFlight = true;
+        }
+        sendNext();
+    }
+
+    /**
+     * Sends the waiting state, if any. Called once a message that couldn't be edited before becomes editable.
+     */
+    public void resume() {
+        synchronized (this) {
+            if (inFlight || pending == null) {
+                return;
+            }
+            inFlight = true;
+        }
+        sendNext();
+    }
+
+    private void sendNext() {
+        MessageEmbed embed;
+        RestAction<?> edit;
+        synchronized (this) {
+            embed = pending;
+            edit = embed == null ? null : sender.apply(embed);
+            if (edit == null) {
+                // Nothing to send, or the message isn't editable yet; the waiting state stays for resume().
+                inFlight = false;
+                return;
+            }
+            pending = null;
+        }
+        SENT.increment();
+        long sent = System.nanoTime();
+        edit.queue(success -> {
+            BotMetrics.EMBED_EDIT.recordSince(sent);
+            sendNext();
+        }, throwable -> {
+            Logger.warning("Failed to update embed: {}", throwable.getMessage());
+            sendNext();
+        });
+    }
+}
@@ -3,74 +3,49 @@
 
 package com.chalwk.util;
 
-import com.chalwk.game.GameManager;
-import com.chalwk.util.Logging.Logger;
-import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.stream.Stream;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 public class FileIO {
 
-    private static final String CONFIG_FILE = "/config.txt";
-
-    public static String loadChannelID() {
-        try (Stream<String> lines = Files.lines(getConfigFilePath())) {
-            return lines.filter(line -> !line.trim().isEmpty())
-                    .findFirst()
-                    .map(String::trim)
-                    .orElse("");
-        } catch (IOException | URISyntaxException e) {
-            Logger.info("Failed to load Channel ID: " + e.getMessage());
-            return null;
-        }
+    private static final String DATA_DIRECTORY_PROPERTY = "hangman.data.dir";
+    private static final String DEFAULT_DATA_DIRECTORY = "data";
+
+    /**
+     * Gets the directory the bot keeps its persistent state in, creating it if needed.
+     * The location can be set with the {@code hangman.data.dir} system property and defaults to {@code ./data}.
+     *
+     * @return the data directory
+     * @throws IOException if the directory can't be created
+     */
+    public static Path getDataDirectory() throws IOException {
+        Path directory = Paths.get(System.getProperty(DATA_DIRECTORY_PROPERTY, DEFAULT_DATA_DIRECTORY));
+        return Files.createDirectories(directory);
     }
 
-    public static void saveChannelID(String channelID, boolean isAddOperation, SlashCommandInteractionEvent event, GameManager gameManager) {
-        try {
-            Path filePath = getConfigFilePath();
-            List<String> lines = Files.readAllLines(filePath);
-
-            if (isAddOperation) {
-                lines.add(channelID);
-                event.reply("## Channel ID saved!").setEphemeral(true).queue();
-                gameManager.setChannelID(channelID);
-            } else {
-                lines.removeIf(line -> line.trim().equals(channelID));
-                event.reply("## Channel ID removed!").setEphemeral(true).queue();
-                gameManager.setChannelID("");
+    /**
+     * Replaces a file in one step: the content is written and synced to a temporary file next to the target,
+     * which is then renamed over it, so readers never see a partially written file.
+     *
+     * @param target  the file to replace
+     * @param content the new content of the file
+     * @throws IOException if the file can't be written
+     */
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
             }
-
-            Files.writeString(filePath, String.join("\n", lines));
-        } catch (URISyntaxException | IOException e) {
-            Logger.info("Failed to save Channel ID: " + e.getMessage());
-            event.reply("## Failed to save channel ID!").setEphemeral(true).queue();
-        }
-    }
-
-    public static boolean isChannelIdConfigured(String channelID) {
-        if (channelID == null) {
-            return false;
-        } else if (!GameManager.getChannelID().isEmpty()) {
-            return true;
-        }
-
-        try (Stream<String> lines = Files.lines(getConfigFilePath())) {
-            return lines.anyMatch(line -> line.trim().equals(channelID));
-        } catch (IOException | URISyntaxException e) {
-            Logger.info("Failed to read data: " + e.getMessage());
-            return false;
+            channel.force(true);
         }
-    }
-
-    private static Path getConfigFilePath() throws URISyntaxException {
-        URI fileUri = FileIO.class.getResource(CONFIG_FILE).toURI();
-        return Paths.get(fileUri);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
     }
 }
@@ -0,0 +1,299 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util.Logging;
+
+import com.chalwk.util.FileIO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log records on a single daemon thread, in batches, to rotating files and the console.
+ * <p>
+ * Records wait in a bounded ring buffer. Callers claim a slot with one compare-and-set and only wake the writer if
+ * it is asleep; the writer drains up to {@value #BATCH_SIZE} records at a time, formats them and writes the batch in
+ * one go. When the buffer is full, the {@code hangman.log.overflow} system property decides: {@code drop}, the
+ * default, drops the record and counts it, so a caller never waits; {@code block} makes the caller wait for room.
+ * <p>
+ * The log is written to {@code hangman.log} in the {@code hangman.log.dir} directory, which defaults to
+ * {@code logs} in the data directory. A file that would grow past {@code hangman.log.file.size} bytes (10 MiB by
+ * default) is renamed to {@code hangman.log.1}, shifting the older ones up, and {@code hangman.log.file.count}
+ * files are kept in all, counting the current one (5 by default). Records are echoed to standard error unless
+ * {@code hangman.log.console} is false. The buffer holds {@code hangman.log.buffer} records, rounded up to a power of two, 8192 by default.
+ */
+final class AsyncLogWriter {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long SHUTDOWN_WAIT_MILLIS = 2000;
+    private static final String FILE_NAME = "hangman.log";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final boolean blockWhenFull;
+    private final boolean console;
+    private final long maxFileSize;
+    private final int fileCount;
+    private final PrintStream stderr = System.err;
+    private final StringBuilder batch = new StringBuilder(64 * 1024);
+    private final Thread thread = new Thread(this::run, "hangman-log");
+
+    /**
+     * The sequence of the next record to write. Only advanced by the writer thread.
+     */
+    private volatile long head;
+    private volatile boolean idle;
+    private volatile boolean closing;
+
+    private Path directory;
+    private OutputStream file;
+    private long fileSize;
+    private long reportedDrops;
+    private boolean fileDisabled;
+
+    /**
+     * Creates a writer whose thread is not started yet.
+     *
+     * @param capacity      the number of records the buffer holds, rounded up to a power of two
+     * @param blockWhenFull true if callers wait for room in a full buffer, false if their records are dropped
+     * @param console       true if records are echoed to standard error
+     * @param maxFileSize   the size in bytes a log file may grow to before it is rotated
+     * @param fileCount     the number of log files kept, counting the current one
+     * @param directory     the directory the log is written to, or null to read it from the system properties on
+     *                      the first write
+     */
+    AsyncLogWriter(int capacity, boolean blockWhenFull, boolean console, long maxFileSize, int fileCount, Path directory) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.blockWhenFull = blockWhenFull;
+        this.console = console;
+        this.maxFileSize = Math.max(1024, maxFileSize);
+        this.fileCount = Math.max(1, fileCount);
+        this.directory = directory;
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Creates the writer configured by the system properties, starts its thread and flushes it on shutdown.
+     *
+     * @return the writer
+     */
+    static AsyncLogWriter start() {
+        AsyncLogWriter writer = new AsyncLogWriter(
+                Integer.getInteger("hangman.log.buffer", 8192),
+                "block".equalsIgnoreCase(System.getProperty("hangman.log.overflow", "drop")),
+                !"false".equalsIgnoreCase(System.getProperty("hangman.log.console", "true")),
+                Long.getLong("hangman.log.file.size", 10L * 1024 * 1024),
+                Integer.getInteger("hangman.log.file.count", 5),
+                null);
+
+        writer.startThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "hangman-log-shutdown"));
+        return writer;
+    }
+
+    /**
+     * Queues a record for writing.
+     *
+     * @param record the record
+     * @return true if the record was queued, false if it was dropped because the buffer was full
+     */
+    boolean offer(LogRecord record) {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head >= slots.length()) {
+                if (!blockWhenFull || closing) {
+                    dropped.increment();
+                    return false;
+                }
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(100_000);
+                continue;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.set((int) (sequence & mask), record);
+                break;
+            }
+        }
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Starts the thread that writes the queued records.
+     */
+    void startThread() {
+        thread.start();
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void run() {
+        while (true) {
+            int written = drain();
+            if (written > 0) {
+                continue;
+            }
+            if (closing) {
+                closeFile();
+                return;
+            }
+
+            // Announce the nap before the last look at the buffer, so a record published after it wakes us up.
+            idle = true;
+            if (slots.get((int) (head & mask)) == null && !closing) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    /**
+     * Formats and writes the records waiting in the buffer, at most one batch of them.
+     *
+     * @return the number of records written
+     */
+    private int drain() {
+        batch.setLength(0);
+        long drops = dropped.sum();
+        if (drops > reportedDrops) {
+            appendLine(System.currentTimeMillis(), thread.getName(), LogLevel.WARNING)
+                    .append(drops - reportedDrops).append(" log records dropped because the buffer was full")
+                    .append(System.lineSeparator());
+            reportedDrops = drops;
+        }
+
+        int count = 0;
+        long sequence = head;
+        while (count < BATCH_SIZE) {
+            int index = (int) (sequence & mask);
+            LogRecord record = slots.get(index);
+            if (record == null) {
+                break;
+            }
+            slots.set(index, null);
+            head = ++sequence;
+            count++;
+
+            appendLine(record.getTimeMillis(), record.getThreadName(), record.getLevel());
+            try {
+                record.formatMessage(batch);
+            } catch (RuntimeException e) {
+                batch.append("<failed to format message: ").append(e).append('>');
+            }
+            batch.append(System.lineSeparator());
+        }
+
+        if (!batch.isEmpty()) {
+            write();
+        }
+        return count;
+    }
+
+    private StringBuilder appendLine(long timeMillis, String threadName, LogLevel level) {
+        TIMESTAMP.formatTo(Instant.ofEpochMilli(timeMillis), batch);
+        return batch.append(" [").append(threadName).append("] ").append(level.name()).append(" - ");
+    }
+
+    private void write() {
+        if (console) {
+            stderr.print(batch);
+            stderr.flush();
+        }
+
+        if (fileDisabled) {
+            return;
+        }
+        byte[] bytes = batch.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (file != null && fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+                rotate();
+            }
+            if (file == null) {
+                openFile();
+            }
+            file.write(bytes);
+            file.flush();
+            fileSize += bytes.length;
+        } catch (IOException e) {
+            closeFile();
+            fileDisabled = true;
+            stderr.println("Failed to write log file, logging to the console only: " + e.getMessage());
+        }
+    }
+
+    private void openFile() throws IOException {
+        if (directory == null) {
+            String configured = System.getProperty("hangman.log.dir");
+            directory = Files.createDirectories(configured != null ? Paths.get(configured) : FileIO.getDataDirectory().resolve("logs"));
+        }
+        Path path = directory.resolve(FILE_NAME);
+        file = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileSize = Files.size(path);
+    }
+
+    private void rotate() throws IOException {
+        closeFile();
+        Path current = directory.resolve(FILE_NAME);
+        if (fileCount == 1) {
+            Files.delete(current);
+            return;
+        }
+        Files.deleteIfExists(directory.resolve(FILE_NAME + "." + (fileCount - 1)));
+        for (int i = fileCount - 2; i >= 1; i--) {
+            Path older = directory.resolve(FILE_NAME + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, directory.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(current, directory.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void closeFile() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+                // Nothing left to log it to.
+            }
+            file = null;
+        }
+    }
+
+    /**
+     * Writes the records still waiting and stops the writer, giving up after a short wait.
+     */
+    void close() {
+        closing = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(SHUTDOWN_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
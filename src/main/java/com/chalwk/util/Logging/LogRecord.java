@@ -0,0 +1,70 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util.Logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.function.Supplier;
+
+/**
+ * A record waiting in the {@link AsyncLogWriter}. It keeps the template and arguments as they were passed and is
+ * only turned into text on the writer thread.
+ */
+final class LogRecord {
+
+    private final LogLevel level;
+    private final long timeMillis = System.currentTimeMillis();
+    private final String threadName = Thread.currentThread().getName();
+    private final String pattern;
+    private final Object[] args;
+    private final Supplier<String> supplier;
+
+    LogRecord(LogLevel level, String pattern, Object[] args, Supplier<String> supplier) {
+        this.level = level;
+        this.pattern = pattern;
+        this.args = args;
+        this.supplier = supplier;
+    }
+
+    LogLevel getLevel() {
+        return level;
+    }
+
+    long getTimeMillis() {
+        return timeMillis;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Appends the message, with its placeholders filled in and any leftover throwable's stack trace below it.
+     *
+     * @param out the buffer to append to
+     */
+    void formatMessage(StringBuilder out) {
+        if (supplier != null) {
+            out.append(supplier.get());
+            return;
+        }
+        if (args == null || args.length == 0) {
+            out.append(pattern);
+            return;
+        }
+
+        int used = 0;
+        int start = 0;
+        for (int brace = pattern.indexOf("{}"); brace >= 0 && used < args.length; brace = pattern.indexOf("{}", start)) {
+            out.append(pattern, start, brace).append(args[used++]);
+            start = brace + 2;
+        }
+        out.append(pattern, start, pattern.length());
+
+        if (used < args.length && args[args.length - 1] instanceof Throwable throwable) {
+            StringWriter trace = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(trace));
+            out.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+    }
+}
@@ -2,52 +2,147 @@
    See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
 package com.chalwk.util.Logging;
 
-import java.io.PrintStream;
-import java.util.Date;
+import java.util.function.Supplier;
 
+/**
+ * The bot's logger. A call checks the level, then hands the message template and its arguments to the
+ * {@link AsyncLogWriter}, which formats and writes them on its own thread, so logging never makes an event thread
+ * wait for a disk or console.
+ * <p>
+ * Messages may contain {@code {}} placeholders, filled in with the arguments only if the record is written. A
+ * {@link Throwable} left over after the placeholders are filled has its stack trace written below the message.
+ * <p>
+ * Since arguments are formatted later, on the writer thread, they must be immutable or thread-safe, like strings,
+ * boxed numbers and exceptions. Pass {@code String.valueOf(argument)} for anything that may change after the call,
+ * such as a collection or a game, so the record shows its state at the time of the call.
+ * <p>
+ * A record is logged when its level is at least as severe as the configured one, which can be set with the
+ * {@code hangman.log.level} system property and defaults to {@link LogLevel#WARNING}. An unknown level is logged
+ * as a warning, and the default is used instead.
+ */
 public class Logger {
-    private static final PrintStream stream = System.err;
-    private static LogLevel logLevel = LogLevel.WARNING;
+    private static final AsyncLogWriter writer = AsyncLogWriter.start();
+    private static volatile LogLevel logLevel = parseLevel(System.getProperty("hangman.log.level"));
 
     public static void setLogLevel(LogLevel level) {
         logLevel = level;
     }
 
+    /**
+     * Checks if records of a level are logged, to skip building an expensive argument.
+     *
+     * @param level the level
+     * @return true if records of the level are logged
+     */
+    public static boolean isLoggable(LogLevel level) {
+        return level.getValue() <= logLevel.getValue();
+    }
+
     public static void log(LogLevel level, String message) {
-        if (level.getValue() >= logLevel.getValue()) {
-            log(level.name() + " - " + message);
+        if (isLoggable(level)) {
+            writer.offer(new LogRecord(level, message, null, null));
         }
     }
 
+    /**
+     * Logs a message with {@code {}} placeholders, filled in on the writer thread.
+     *
+     * @param level   the level
+     * @param pattern the message template
+     * @param args    the arguments, which must be immutable or thread-safe
+     */
+    public static void log(LogLevel level, String pattern, Object... args) {
+        if (isLoggable(level)) {
+            writer.offer(new LogRecord(level, pattern, args, null));
+        }
+    }
+
+    /**
+     * Logs a message that is only built if the record is written.
+     *
+     * @param level   the level
+     * @param message builds the message, on the writer thread
+     */
+    public static void log(LogLevel level, Supplier<String> message) {
+        if (isLoggable(level)) {
+            writer.offer(new LogRecord(level, null, null, message));
+        }
+    }
+
+    /**
+     * Gets the number of records dropped because the buffer was full.
+     *
+     * @return the number of dropped records
+     */
+    public static long getDroppedCount() {
+        return writer.getDroppedCount();
+    }
+
     public static void severe(String message) {
         log(LogLevel.SEVERE, message);
     }
 
+    public static void severe(String pattern, Object... args) {
+        log(LogLevel.SEVERE, pattern, args);
+    }
+
     public static void warning(String message) {
         log(LogLevel.WARNING, message);
     }
 
+    public static void warning(String pattern, Object... args) {
+        log(LogLevel.WARNING, pattern, args);
+    }
+
     public static void info(String message) {
         log(LogLevel.INFO, message);
     }
 
+    public static void info(String pattern, Object... args) {
+        log(LogLevel.INFO, pattern, args);
+    }
+
     public static void config(String message) {
         log(LogLevel.CONFIG, message);
     }
 
+    public static void config(String pattern, Object... args) {
+        log(LogLevel.CONFIG, pattern, args);
+    }
+
     public static void fine(String message) {
         log(LogLevel.FINE, message);
     }
 
+    public static void fine(String pattern, Object... args) {
+        log(LogLevel.FINE, pattern, args);
+    }
+
     public static void finer(String message) {
         log(LogLevel.FINER, message);
     }
 
+    public static void finer(String pattern, Object... args) {
+        log(LogLevel.FINER, pattern, args);
+    }
+
     public static void finest(String message) {
         log(LogLevel.FINEST, message);
     }
 
-    private static void log(String message) {
-        stream.println(new Date() + " - " + message);
+    public static void finest(String pattern, Object... args) {
+        log(LogLevel.FINEST, pattern, args);
+    }
+
+    private static LogLevel parseLevel(String name) {
+        if (name != null) {
+            try {
+                return LogLevel.valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException ignored) {
+                writer.offer(new LogRecord(LogLevel.WARNING, "Unknown log level '{}', using {}",
+                        new Object[]{name, LogLevel.WARNING}, null));
+            }
+        }
+        return LogLevel.WARNING;
     }
 }
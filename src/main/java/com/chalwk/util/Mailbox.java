@@ -0,0 +1,139 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import com.chalwk.util.Logging.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the events posted to it one at a time, in the order they were posted, on a shared pool of threads.
+ * <p>
+ * Whoever posts the first event into an empty mailbox schedules it on the pool, and the drain keeps running events
+ * until the mailbox is empty again, so no two events of one mailbox ever run at once and each sees everything the
+ * previous ones did, without a lock. Different mailboxes run in parallel. A drain hands its thread back after
+ * {@value #FAIRNESS_BATCH} events and reschedules itself, so a busy mailbox can't starve the others.
+ * <p>
+ * The size of the shared pool can be set with the {@code hangman.mailbox.threads} system property and defaults to
+ * the number of processors.
+ */
+public final class Mailbox {
+
+    private static final int FAIRNESS_BATCH = 64;
+    private static final ExecutorService SHARED_POOL = createPool(Integer.getInteger("hangman.mailbox.threads",
+            Runtime.getRuntime().availableProcessors()));
+    private static final AtomicLong TOTAL_DEPTH = new AtomicLong();
+    private static final LongAccumulator MAX_DEPTH = new LongAccumulator(Math::max, 0);
+    private static final LongAdder PROCESSED = new LongAdder();
+
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * Creates a mailbox that runs its events on the shared pool.
+     */
+    public Mailbox() {
+        this(SHARED_POOL);
+    }
+
+    /**
+     * Creates a mailbox.
+     *
+     * @param executor the executor its events run on
+     */
+    public Mailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the number of events waiting or running in every mailbox.
+     *
+     * @return the total queue depth
+     */
+    public static long getTotalDepth() {
+        return TOTAL_DEPTH.get();
+    }
+
+    /**
+     * Gets the deepest any single mailbox has been since the last call, and starts measuring again, so a burst shows
+     * up in the next reading instead of raising every reading after it.
+     *
+     * @return the maximum queue depth since the last call
+     */
+    public static long takeMaxDepth() {
+        return MAX_DEPTH.getThenReset();
+    }
+
+    /**
+     * Gets the number of events every mailbox has run.
+     *
+     * @return the number of processed events
+     */
+    public static long getProcessedCount() {
+        return PROCESSED.sum();
+    }
+
+    private static ExecutorService createPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "hangman-mailbox-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Posts an event. It runs after every event posted before it.
+     *
+     * @param event the event
+     */
+    public void post(Runnable event) {
+        events.offer(event);
+        TOTAL_DEPTH.incrementAndGet();
+        int queued = depth.incrementAndGet();
+        MAX_DEPTH.accumulate(queued);
+        if (queued == 1) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Gets the number of events waiting or running in this mailbox.
+     *
+     * @return the queue depth
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    private void drain() {
+        for (int processed = 1; ; processed++) {
+            // The depth counts an event only once it is in the queue, so while it is above zero there is one to poll.
+            Runnable event = events.poll();
+            try {
+                event.run();
+            } catch (Throwable t) {
+                // Whatever the event threw, the depth must still drop, or the mailbox never drains again.
+                Logger.severe("Mailbox event failed: {}", t, t);
+            }
+            TOTAL_DEPTH.decrementAndGet();
+            PROCESSED.increment();
+
+            if (depth.decrementAndGet() == 0) {
+                return;
+            }
+            if (processed == FAIRNESS_BATCH) {
+                executor.execute(this::drain);
+                return;
+            }
+        }
+    }
+}
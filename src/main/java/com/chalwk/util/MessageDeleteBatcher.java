@@ -0,0 +1,183 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import com.chalwk.util.Logging.Logger;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the messages the bot deletes in each channel over a short window and deletes them together.
+ * <p>
+ * The first message queued for a channel opens a window on the shared {@link TimingWheel}; everything queued for
+ * that channel until the window closes goes out in one bulk delete, which Discord accepts for 2 to 100 messages.
+ * A window holding a single message falls back to a normal delete, and so does every message of a bulk delete
+ * that fails. This keeps chatty games from draining the channel's delete rate limit ahead of their embed edits.
+ */
+public final class MessageDeleteBatcher {
+
+    private static final MessageDeleteBatcher SHARED = new MessageDeleteBatcher(Long.getLong("hangman.delete.window.ms", 500));
+    private static final int MAX_BULK_SIZE = 100;
+
+    private final long windowMillis;
+    private final ConcurrentLongMap<Batch> batches = new ConcurrentLongMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a batcher.
+     *
+     * @param windowMillis how long messages of a channel are collected before they are deleted
+     */
+    public MessageDeleteBatcher(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Gets the batcher shared by the whole bot. Its window can be set with the {@code hangman.delete.window.ms}
+     * system property.
+     *
+     * @return the shared batcher
+     */
+    public static MessageDeleteBatcher getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Queues a message for deletion.
+     *
+     * @param channel   the channel the message was sent in
+     * @param messageID the ID of the message
+     */
+    public void delete(GuildMessageChannel channel, long messageID) {
+        long channelID = channel.getIdLong();
+        while (true) {
+            Batch batch = batches.get(channelID);
+            if (batch == null) {
+                batch = new Batch(channel);
+                Batch existing = batches.putIfAbsent(channelID, batch);
+                if (existing != null) {
+                    batch = existing;
+                }
+            }
+            if (batch.add(messageID)) {
+                queueDepth.incrementAndGet();
+                return;
+            }
+            // The batch was flushed and retired while we got hold of it; start over with a fresh one.
+        }
+    }
+
+    /**
+     * Gets the number of messages waiting to be deleted.
+     *
+     * @return the number of queued messages
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Gets the number of delete requests sent, bulk or single.
+     *
+     * @return the number of flushes
+     */
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    /**
+     * Gets the total time between queueing the first message of a batch and Discord confirming its deletion,
+     * summed over every flush.
+     *
+     * @return the total flush latency, in nanoseconds
+     */
+    public long getTotalFlushNanos() {
+        return flushNanos.sum();
+    }
+
+    /**
+     * Gets the longest time between queueing the first message of a batch and Discord confirming its deletion.
+     *
+     * @return the maximum flush latency, in nanoseconds
+     */
+    public long getMaxFlushNanos() {
+        return maxFlushNanos.get();
+    }
+
+    private void recordFlush(long openedNanos) {
+        long nanos = System.nanoTime() - openedNanos;
+        flushes.increment();
+        flushNanos.add(nanos);
+        maxFlushNanos.accumulate(nanos);
+    }
+
+    private void deleteSingle(GuildMessageChannel channel, long messageID, long openedNanos) {
+        channel.deleteMessageById(messageID).queue(
+                success -> recordFlush(openedNanos),
+                throwable -> Logger.warning("Failed to delete message: {}", throwable.getMessage()));
+    }
+
+    /**
+     * The messages collected for one channel during one window. Once flushed, a batch is retired and removed from
+     * the map, and later messages start a new batch.
+     */
+    private final class Batch {
+
+        private final GuildMessageChannel channel;
+        private final List<String> messageIDs = new ArrayList<>();
+        private long openedNanos;
+        private boolean retired;
+
+        private Batch(GuildMessageChannel channel) {
+            this.channel = channel;
+        }
+
+        private synchronized boolean add(long messageID) {
+            if (retired) {
+                return false;
+            }
+            if (messageIDs.isEmpty()) {
+                openedNanos = System.nanoTime();
+                TimingWheel.getShared().schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+            messageIDs.add(Long.toUnsignedString(messageID));
+            return true;
+        }
+
+        private void flush() {
+            List<String> ids;
+            synchronized (this) {
+                retired = true;
+                ids = new ArrayList<>(messageIDs);
+                messageIDs.clear();
+            }
+            batches.remove(channel.getIdLong(), this);
+            queueDepth.addAndGet(-ids.size());
+
+            for (int start = 0; start < ids.size(); start += MAX_BULK_SIZE) {
+                List<String> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_BULK_SIZE));
+                if (chunk.size() == 1) {
+                    deleteSingle(channel, Long.parseUnsignedLong(chunk.get(0)), openedNanos);
+                } else {
+                    channel.deleteMessagesByIds(chunk).queue(
+                            success -> recordFlush(openedNanos),
+                            throwable -> {
+                                Logger.warning("Bulk delete of {} messages failed, deleting one by one: {}", chunk.size(), throwable.getMessage());
+                                for (String id : chunk) {
+                                    deleteSingle(channel, Long.parseUnsignedLong(id), openedNanos);
+                                }
+                            });
+                }
+            }
+        }
+    }
+}
@@ -3,13 +3,15 @@
 
 package com.chalwk.util;
 
-import com.chalwk.game.GameManager;
 import net.dv8tion.jda.api.entities.channel.Channel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 
+import static com.chalwk.bot.BotInitializer.getGameManager;
+
 public class Settings {
 
     public static final int DEFAULT_TIME_LIMIT = 300;
+    private static final String GUESS_MODE_PROPERTY = "hangman.guess.mode";
     private static final String SETUP_MESSAGE = """
             # Hangman is not set up.
             Please set the channel for Hangman to use first.
@@ -21,14 +23,25 @@ public class Settings {
         return DEFAULT_TIME_LIMIT;
     }
 
+    /**
+     * Checks if players guess through the select menus and button attached to the game embed rather than
+     * by typing messages, as set by the {@code hangman.guess.mode} system property ({@code components} or
+     * {@code messages}, the default). Guessing through components doesn't need the MESSAGE_CONTENT intent.
+     *
+     * @return true if guesses are made through message components, false if they are made by messages
+     */
+    public static boolean useComponentGuesses() {
+        return "components".equalsIgnoreCase(System.getProperty(GUESS_MODE_PROPERTY, "messages"));
+    }
+
     public static boolean notCorrectChannel(SlashCommandInteractionEvent event) {
-        String thisChannel = event.getChannel().getId();
-        String requiredChannel = GameManager.getChannelID();
+        long thisChannel = event.getChannel().getIdLong();
+        long requiredChannel = event.getGuild() == null ? 0 : getGameManager().getChannelRegistry().getChannelID(event.getGuild().getIdLong());
 
-        if (requiredChannel.isEmpty()) {
+        if (requiredChannel == 0) {
             sendEphemeralReply(event, SETUP_MESSAGE);
             return true;
-        } else if (!thisChannel.equals(requiredChannel)) {
+        } else if (thisChannel != requiredChannel) {
             handleIncorrectChannel(event, requiredChannel);
             return true;
         }
@@ -39,7 +52,7 @@ public class Settings {
         event.reply(message).setEphemeral(true).queue();
     }
 
-    private static void handleIncorrectChannel(SlashCommandInteractionEvent event, String requiredChannel) {
+    private static void handleIncorrectChannel(SlashCommandInteractionEvent event, long requiredChannel) {
         Channel channel = event.getGuild().getTextChannelById(requiredChannel);
 
         if (channel != null) {
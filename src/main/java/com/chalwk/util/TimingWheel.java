@@ -0,0 +1,261 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import com.chalwk.metrics.BotMetrics;
+import com.chalwk.util.Logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A hashed timing wheel that runs every delayed task of the bot on a single daemon thread.
+ * <p>
+ * Tasks are hashed into a fixed ring of buckets by their deadline tick, so scheduling and cancelling are O(1)
+ * and the thread count stays at one no matter how many games are running. The worker only ticks while at least
+ * one task is pending and sleeps indefinitely otherwise.
+ * <p>
+ * Expired tasks run on the wheel thread, so they must be short and must not block.
+ */
+public final class TimingWheel {
+
+    private static final TimingWheel SHARED = new TimingWheel("hangman-timer", 100, TimeUnit.MILLISECONDS, 512);
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private final List<Timeout> expired = new ArrayList<>();
+
+    /**
+     * The index of the next tick to be processed. Guarded by {@link #lock}.
+     */
+    private long tick;
+
+    /**
+     * The number of scheduled, not yet expired or cancelled timeouts. Guarded by {@link #lock}.
+     */
+    private int pending;
+
+    /**
+     * Creates a timing wheel and starts its worker thread.
+     *
+     * @param name         the name of the worker thread
+     * @param tickDuration the duration of a single tick
+     * @param unit         the unit of the tick duration
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of two
+     */
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+
+        Thread worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Gets the timing wheel shared by the whole bot.
+     *
+     * @return the shared timing wheel
+     */
+    public static TimingWheel getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedules a task to run once after the given delay.
+     *
+     * @param task  the task to run
+     * @param delay the delay before the task runs
+     * @param unit  the unit of the delay
+     * @return a handle that can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(this, task, deadline);
+
+        lock.lock();
+        try {
+            if (pending == 0) {
+                // The worker is idle, so the tick counter may be stale; catch it up to the current time.
+                tick = Math.max(tick, (System.nanoTime() - startNanos) / tickNanos);
+            }
+            long targetTick = Math.max(tick, (deadline + tickNanos - 1) / tickNanos - 1);
+            timeout.rounds = (targetTick - tick) / wheel.length;
+            wheel[(int) (targetTick & mask)].add(timeout);
+            if (++pending == 1) {
+                wakeUp.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return timeout;
+    }
+
+    /**
+     * Gets the number of tasks that are waiting to run.
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean cancel(Timeout timeout) {
+        lock.lock();
+        try {
+            if (timeout.bucket == null) {
+                return false;
+            }
+            timeout.bucket.remove(timeout);
+            pending--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            lock.lock();
+            try {
+                if (pending == 0) {
+                    wakeUp.awaitUninterruptibly();
+                    continue;
+                }
+                long wait = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+                if (wait > 0) {
+                    wakeUp.awaitNanos(wait);
+                    continue;
+                }
+                pending -= wheel[(int) (tick & mask)].expire(expired);
+                tick++;
+            } catch (InterruptedException ignored) {
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            long now = System.nanoTime() - startNanos;
+            for (Timeout timeout : expired) {
+                BotMetrics.SCHEDULER_LAG.record(Math.max(0, now - timeout.deadline));
+                try {
+                    timeout.task.run();
+                } catch (Throwable t) {
+                    Logger.severe("Scheduled task failed: {}", t, t);
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    /**
+     * A handle to a task scheduled on a {@link TimingWheel}.
+     */
+    public static final class Timeout {
+
+        private final TimingWheel owner;
+        private final Runnable task;
+        private final long deadline;
+        private long rounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel owner, Runnable task, long deadline) {
+            this.owner = owner;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it has not run yet.
+         *
+         * @return true if the task was cancelled, false if it already ran or was cancelled before
+         */
+        public boolean cancel() {
+            return owner.cancel(this);
+        }
+
+        /**
+         * Gets the remaining delay until the task runs.
+         *
+         * @param unit the unit to convert the delay to
+         * @return the remaining delay, or zero if the deadline has passed
+         */
+        public long getDelay(TimeUnit unit) {
+            long remaining = deadline - (System.nanoTime() - owner.startNanos);
+            return unit.convert(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * An intrusive doubly-linked list of the timeouts hashed to one slot of the wheel.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        private int expire(List<Timeout> expired) {
+            int count = 0;
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    expired.add(timeout);
+                    count++;
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deals the words of new games from a deck per guild, so a guild sees every word of the dictionary once before any
+ * word comes up again.
+ * <p>
+ * A deck is shuffled lazily, one card per deal: each deal runs one step of a Fisher–Yates shuffle over the word
+ * indexes, and only the positions that step has swapped are remembered, in a primitive open-addressing table. Once an
+ * eighth of the deck has been dealt, the table is swapped for a plain array of the words left, which is smaller than
+ * the table would grow to. A deck costs nothing until it is dealt from. When it runs out, the next deal starts a new
+ * one. Random numbers come from {@link ThreadLocalRandom} and each deck has its own lock, so games starting in
+ * different guilds never contend.
+ * <p>
+ * A guild's deck is dropped when the bot leaves the guild. Games played outside a guild are dealt from a deck per
+ * channel instead, which a periodic sweep drops once it hasn't been dealt from for {@value #CHANNEL_DECK_IDLE_MINUTES}
+ * minutes.
+ */
+public final class WordDealer {
+
+    private static final WordDealer SHARED = new WordDealer();
+    private static final long CHANNEL_DECK_IDLE_MINUTES = 60;
+    private static final long SWEEP_INTERVAL_MINUTES = 10;
+
+    private final ConcurrentLongMap<Deck> guildDecks = new ConcurrentLongMap<>();
+    private final ConcurrentLongMap<Deck> channelDecks = new ConcurrentLongMap<>();
+
+    public WordDealer() {
+        scheduleSweep();
+    }
+
+    /**
+     * Gets the dealer shared by the whole bot.
+     *
+     * @return the shared dealer
+     */
+    public static WordDealer getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Deals the next word of a game: from its guild's deck, or from its channel's for a game played outside a guild.
+     *
+     * @param guildID   the ID of the guild, or 0 outside a guild
+     * @param channelID the ID of the channel
+     * @return the word
+     */
+    public String deal(long guildID, long channelID) {
+        Deck deck = guildID != 0 ? getDeck(guildDecks, guildID) : getDeck(channelDecks, channelID);
+        return WordList.getWord(deck.next());
+    }
+
+    /**
+     * Drops the deck of a guild the bot has left.
+     *
+     * @param guildID the ID of the guild
+     */
+    public void discardGuildDeck(long guildID) {
+        guildDecks.remove(guildID);
+    }
+
+    /**
+     * Gets the number of decks held, for guilds and channels together.
+     *
+     * @return the number of decks
+     */
+    public int getDeckCount() {
+        return guildDecks.size() + channelDecks.size();
+    }
+
+    private static Deck getDeck(ConcurrentLongMap<Deck> decks, long deckID) {
+        Deck deck = decks.get(deckID);
+        if (deck == null) {
+            Deck created = new Deck();
+            deck = decks.putIfAbsent(deckID, created);
+            if (deck == null) {
+                deck = created;
+            }
+        }
+        return deck;
+    }
+
+    /**
+     * Drops the channel decks that haven't been dealt from since the idle limit before a point in time.
+     *
+     * @param now the current time, as returned by {@link System#nanoTime()}
+     */
+    void sweep(long now) {
+        long idleLimit = TimeUnit.MINUTES.toNanos(CHANNEL_DECK_IDLE_MINUTES);
+        channelDecks.forEach((channelID, deck) -> {
+            if (now - deck.lastDealtNanos > idleLimit) {
+                channelDecks.remove(channelID, deck);
+            }
+        });
+    }
+
+    private void scheduleSweep() {
+        TimingWheel.getShared().schedule(() -> {
+            sweep(System.nanoTime());
+            scheduleSweep();
+        }, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * The words of one guild or channel that haven't been dealt yet.
+     */
+    private static final class Deck {
+
+        private static final int NONE = -1;
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * The positions the shuffle has swapped and the word index now at each, in an open-addressing table with
+         * {@link #NONE} marking free slots. Any other position below {@link #remaining} still holds the word with its
+         * own index. Entries at or above {@code remaining} are stale and never read again.
+         */
+        private int[] positions;
+        private int[] words;
+        private int swapped;
+        /**
+         * The word index at each position below {@link #remaining}, once an eighth of the deck has been dealt.
+         */
+        private int[] deck;
+        private int size;
+        private int remaining;
+        private volatile long lastDealtNanos = System.nanoTime();
+
+        synchronized int next() {
+            lastDealtNanos = System.nanoTime();
+            if (remaining == 0) {
+                size = WordList.getWordCount();
+                remaining = size;
+                if (remaining == 0) {
+                    throw new IllegalStateException("The dictionary is empty");
+                }
+                deck = null;
+                positions = new int[INITIAL_CAPACITY];
+                words = new int[INITIAL_CAPACITY];
+                Arrays.fill(positions, NONE);
+                swapped = 0;
+            }
+
+            // Draw a random position, deal the word there and move the last word of the deck into its place.
+            int position = ThreadLocalRandom.current().nextInt(remaining);
+            int last = --remaining;
+            if (deck != null) {
+                int word = deck[position];
+                deck[position] = deck[last];
+                return word;
+            }
+
+            int word = wordAt(position);
+            if (position != last) {
+                put(position, wordAt(last));
+                if (swapped > size / 8) {
+                    toArray();
+                }
+            }
+            return word;
+        }
+
+        private int wordAt(int position) {
+            int mask = positions.length - 1;
+            for (int index = slot(position, mask); positions[index] != NONE; index = (index + 1) & mask) {
+                if (positions[index] == position) {
+                    return words[index];
+                }
+            }
+            return position;
+        }
+
+        private void put(int position, int word) {
+            int mask = positions.length - 1;
+            int index = slot(position, mask);
+            while (positions[index] != NONE && positions[index] != position) {
+                index = (index + 1) & mask;
+            }
+            if (positions[index] == NONE) {
+                positions[index] = position;
+                swapped++;
+            }
+            words[index] = word;
+            if (swapped * 2 > positions.length) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            int[] oldPositions = positions;
+            int[] oldWords = words;
+            positions = new int[oldPositions.length * 2];
+            words = new int[oldPositions.length * 2];
+            Arrays.fill(positions, NONE);
+            int mask = positions.length - 1;
+            for (int i = 0; i < oldPositions.length; i++) {
+                if (oldPositions[i] != NONE) {
+                    int index = slot(oldPositions[i], mask);
+                    while (positions[index] != NONE) {
+                        index = (index + 1) & mask;
+                    }
+                    positions[index] = oldPositions[i];
+                    words[index] = oldWords[i];
+                }
+            }
+        }
+
+        private void toArray() {
+            int[] array = new int[remaining];
+            for (int i = 0; i < remaining; i++) {
+                array[i] = wordAt(i);
+            }
+            deck = array;
+            positions = null;
+            words = null;
+        }
+
+        private static int slot(int position, int mask) {
+            int hash = position * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
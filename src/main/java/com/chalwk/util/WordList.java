@@ -3,46 +3,156 @@
 
 package com.chalwk.util;
 
-import com.chalwk.util.Logging.Logger;
-
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * The dictionary of playable words, memory-mapped from the binary artifact the build compiles from {@code words.txt}.
+ * Words are only turned into Strings when they are picked, so heap use does not grow with the size of the dictionary.
+ * <p>
+ * A missing, unreadable or empty dictionary fails the bot at startup, rather than the first game that needs a word.
+ */
 public class WordList {
 
-    private static List<String> wordList;
+    public static final int MAGIC = 0x48574C44;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 5 * Integer.BYTES;
+    public static final int MIN_WORD_LENGTH = 2;
+    public static final int MAX_WORD_LENGTH = 64;
+
+    private static final String RESOURCE_NAME = "words.dat";
+    private static final String PATH_PROPERTY = "hangman.words";
+
+    private static ByteBuffer dictionary;
+    private static int wordCount;
+    private static int minLength;
+    private static int maxLength;
+    private static int bucketsStart;
+    private static int offsetsStart;
+    private static int dataStart;
+
+    private WordList() {
+    }
 
-    public WordList() {
-        wordList = new ArrayList<>();
-        loadWordsFromFile();
+    /**
+     * Loads the dictionary, unless it has been loaded already. Must be called before any word is picked.
+     *
+     * @throws IllegalStateException if the dictionary is missing, can't be read, has an unknown format or has no words
+     */
+    public static synchronized void load() {
+        if (dictionary == null) {
+            loadDictionary();
+        }
     }
 
+    /**
+     * Picks a random word. New games get their words from the {@link WordDealer} instead, so words don't repeat.
+     *
+     * @return a random word
+     */
     public static String getRandomWord() {
-        return wordList.get((int) (Math.random() * wordList.size()));
+        return getWord(ThreadLocalRandom.current().nextInt(wordCount));
     }
 
-    private void loadWordsFromFile() {
-        String fileName = "words.txt";
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(fileName)) {
-            if (inputStream == null) {
-                Logger.warning("File not found: " + fileName);
-                return;
-            }
+    /**
+     * Picks a random word of the given length.
+     *
+     * @param length the number of characters of the word
+     * @return a random word of that length, or null if the dictionary has none
+     */
+    public static String getRandomWord(int length) {
+        if (length < minLength || length > maxLength) {
+            return null;
+        }
+        int start = dictionary.getInt(bucketsStart + (length - minLength) * Integer.BYTES);
+        int end = dictionary.getInt(bucketsStart + (length - minLength + 1) * Integer.BYTES);
+        return start == end ? null : getWord(ThreadLocalRandom.current().nextInt(start, end));
+    }
+
+    /**
+     * Reads a single word out of the dictionary.
+     *
+     * @param index the index of the word, from 0 until {@link #getWordCount()}
+     * @return the word
+     */
+    public static String getWord(int index) {
+        int start = dictionary.getInt(offsetsStart + index * Integer.BYTES);
+        int end = dictionary.getInt(offsetsStart + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        dictionary.get(dataStart + start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            String line;
+    /**
+     * Gets the number of words in the dictionary.
+     *
+     * @return the number of words
+     */
+    public static int getWordCount() {
+        return wordCount;
+    }
 
-            while ((line = reader.readLine()) != null) {
-                String[] words = line.split("\\s+");
-                Collections.addAll(wordList, words);
+    private static void loadDictionary() {
+        try {
+            Path path = locateDictionary();
+            if (path == null) {
+                throw new IllegalStateException("Dictionary not found: " + RESOURCE_NAME + " is not on the classpath, "
+                        + "build it with Maven or set " + PATH_PROPERTY + " to its path");
+            }
+            try (FileChannel channel = FileChannel.open(path)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                    throw new IllegalStateException("Unsupported dictionary format: " + path);
+                }
+                if (buffer.getInt(2 * Integer.BYTES) == 0) {
+                    throw new IllegalStateException("The dictionary has no words: " + path);
+                }
+                wordCount = buffer.getInt(2 * Integer.BYTES);
+                minLength = buffer.getInt(3 * Integer.BYTES);
+                maxLength = buffer.getInt(4 * Integer.BYTES);
+                bucketsStart = HEADER_SIZE;
+                offsetsStart = bucketsStart + (maxLength - minLength + 2) * Integer.BYTES;
+                dataStart = offsetsStart + (wordCount + 1) * Integer.BYTES;
+                dictionary = buffer;
             }
-        } catch (IOException e) {
-            Logger.warning("Failed to load words from file: " + e.getMessage());
+        } catch (IOException | URISyntaxException e) {
+            throw new IllegalStateException("Failed to load the dictionary: " + e, e);
+        }
+    }
+
+    /**
+     * Finds a dictionary file that can be mapped: the path given by the {@code hangman.words} system property,
+     * the compiled resource when the classpath is a directory, or a temporary copy of the resource when it is
+     * packaged inside the jar.
+     */
+    private static Path locateDictionary() throws IOException, URISyntaxException {
+        String override = System.getProperty(PATH_PROPERTY);
+        if (override != null) {
+            return Paths.get(override);
+        }
+
+        URL resource = WordList.class.getClassLoader().getResource(RESOURCE_NAME);
+        if (resource == null) {
+            return null;
+        } else if (resource.getProtocol().equals("file")) {
+            return Paths.get(resource.toURI());
+        }
+
+        Path copy = Files.createTempFile("hangman-words", ".dat");
+        copy.toFile().deleteOnExit();
+        try (InputStream in = resource.openStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
         }
+        return copy;
     }
 }
@@ -0,0 +1,351 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.simulation;
+
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An in-process stand-in for Discord's REST API and the JDA entities that talk to it.
+ * <p>
+ * Entities are dynamic proxies of JDA interfaces. Any method returning a {@link RestAction} hands out a simulated
+ * request; queueing it reserves a slot in the rate limit bucket of its route, the method name together with the
+ * channel or interaction token it targets, and completes it on a scheduler after the bucket wait plus the simulated
+ * network latency. Completion callbacks run on the scheduler, like they would on JDA's callback pool.
+ * <p>
+ * Requests remember the {@link SimulatedMatch} they were made for, and callbacks run on behalf of that match, so
+ * requests chained from callbacks, like coalesced embed edits, stay attributed to the game that caused them. The match
+ * is the one that owns the interaction a request targets, or else the one the entity's owner function picks from the
+ * call's arguments, or else the one whose thread made the request.
+ */
+final class FakeDiscord {
+
+    /**
+     * Routes whose completion shows a new state of the game to the players.
+     */
+    private static final Set<String> VISIBLE_ROUTES = Set.of(
+            "deferReply", "deferEdit", "editOriginalEmbeds", "editMessageEmbedsById", "sendMessage", "sendMessageEmbeds");
+
+    /**
+     * Requests and window length in milliseconds of the rate limit bucket of each route, modelled on Discord's limits.
+     */
+    private static final Map<String, long[]> ROUTE_LIMITS = Map.of(
+            "sendMessage", new long[]{5, 5000},
+            "sendMessageEmbeds", new long[]{5, 5000},
+            "editMessageEmbedsById", new long[]{5, 5000},
+            "deleteMessageById", new long[]{5, 1000},
+            "deleteMessagesByIds", new long[]{1, 1000});
+    private static final long[] INTERACTION_LIMIT = {5, 2000};
+    private static final Object[] NO_ARGS = {};
+    private static final ThreadLocal<SimulatedMatch> CURRENT_MATCH = new ThreadLocal<>();
+
+    private final ScheduledExecutorService scheduler;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final AtomicLong nextSnowflake = new AtomicLong(1_000_000_000L);
+    private final ConcurrentHashMap<String, SimulatedMatch> owners = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> callsByRoute = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder rateLimitWaitMillis = new LongAdder();
+    private final LongAdder callbackErrors = new LongAdder();
+    private final AtomicReference<Throwable> firstCallbackError = new AtomicReference<>();
+
+    /**
+     * Creates the stand-in.
+     *
+     * @param threads       the number of threads completing requests and running the simulated players
+     * @param latencyMillis the base latency of a request
+     * @param jitterMillis  the maximum random latency added to each request
+     */
+    FakeDiscord(int threads, long latencyMillis, long jitterMillis) {
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-discord");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+    }
+
+    /**
+     * Runs a task on the scheduler on behalf of a match.
+     *
+     * @param match   the match the task and the requests it creates belong to
+     * @param task    the task
+     * @param delayMs how long to wait before running it
+     */
+    void schedule(SimulatedMatch match, Runnable task, long delayMs) {
+        scheduler.schedule(() -> runAs(match, task), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a JDA entity.
+     *
+     * @param types   the interfaces the entity implements; the first one names it
+     * @param target  the channel ID or interaction token its requests are rate limited by
+     * @param answers canned answers by method name, given the call's arguments
+     * @return the entity
+     */
+    Object entity(Class<?>[] types, String target, Map<String, Function<Object[], Object>> answers) {
+        return entity(types, target, answers, args -> null);
+    }
+
+    /**
+     * Creates a JDA entity whose requests are attributed by their arguments.
+     *
+     * @param types   the interfaces the entity implements; the first one names it
+     * @param target  the channel ID or interaction token its requests are rate limited by
+     * @param answers canned answers by method name, given the call's arguments
+     * @param ownerOf picks the match a request is made for from the call's arguments, or returns null
+     * @return the entity
+     */
+    Object entity(Class<?>[] types, String target, Map<String, Function<Object[], Object>> answers,
+                  Function<Object[], SimulatedMatch> ownerOf) {
+        return Proxy.newProxyInstance(FakeDiscord.class.getClassLoader(), types, (proxy, method, args) -> {
+            String name = method.getName();
+            Function<Object[], Object> answer = answers.get(name);
+            if (answer != null) {
+                return answer.apply(args == null ? NO_ARGS : args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, name, args, types[0]);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (RestAction.class.isAssignableFrom(returnType)) {
+                return request(returnType, name, target, null, ownerOf.apply(args == null ? NO_ARGS : args));
+            }
+            return defaultValue(proxy, returnType, target);
+        });
+    }
+
+    /**
+     * Creates a JDA entity implementing a single interface.
+     *
+     * @see #entity(Class[], String, Map)
+     */
+    <T> T entity(Class<T> type, String target, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(entity(new Class<?>[]{type}, target, answers));
+    }
+
+    /**
+     * Creates a simulated request. Builder methods return the request itself; {@code queue} and {@code submit}
+     * send it.
+     *
+     * @param type   the request interface
+     * @param route  the route of the request
+     * @param target the channel ID or interaction token the request is rate limited by
+     * @param result supplies the value the request completes with, or null to complete with null
+     * @return the request
+     */
+    Object request(Class<?> type, String route, String target, Supplier<?> result) {
+        return request(type, route, target, result, null);
+    }
+
+    private Object request(Class<?> type, String route, String target, Supplier<?> result, SimulatedMatch owner) {
+        SimulatedMatch match = owners.getOrDefault(target, owner != null ? owner : CURRENT_MATCH.get());
+        return Proxy.newProxyInstance(FakeDiscord.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            Object[] arguments = args == null ? NO_ARGS : args;
+            if (name.equals("queue")) {
+                send(route, target, match, result, consumer(arguments, 0), consumer(arguments, 1));
+                return null;
+            } else if (name.equals("submit")) {
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                send(route, target, match, result, future::complete, future::completeExceptionally);
+                return future;
+            } else if (name.equals("complete")) {
+                throw new UnsupportedOperationException("Blocking request in simulation: " + route);
+            } else if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, name, args, type);
+            }
+            return defaultValue(proxy, method.getReturnType(), target);
+        });
+    }
+
+    /**
+     * Attributes every request targeting an interaction to a match.
+     *
+     * @param token the token of the interaction
+     * @param match the match the interaction belongs to
+     */
+    void setOwner(String token, SimulatedMatch match) {
+        owners.put(token, match);
+    }
+
+    /**
+     * Gets a new unique ID.
+     *
+     * @return the ID
+     */
+    long nextSnowflake() {
+        return nextSnowflake.incrementAndGet();
+    }
+
+    long getCalls() {
+        return calls.sum();
+    }
+
+    long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    long getRateLimitWaitMillis() {
+        return rateLimitWaitMillis.sum();
+    }
+
+    long getCallbackErrors() {
+        return callbackErrors.sum();
+    }
+
+    /**
+     * Describes the first callback that failed, in one line.
+     *
+     * @return the first failure and where it was thrown, or null if no callback failed
+     */
+    String describeFirstCallbackError() {
+        Throwable error = firstCallbackError.get();
+        if (error == null) {
+            return null;
+        }
+        StackTraceElement[] trace = error.getStackTrace();
+        return error + (trace.length > 0 ? " at " + trace[0] : "");
+    }
+
+    /**
+     * Gets the number of requests sent per route, sorted by route.
+     *
+     * @return the request counts
+     */
+    Map<String, Long> getCallsByRoute() {
+        Map<String, Long> counts = new TreeMap<>();
+        callsByRoute.forEach((route, count) -> counts.put(route, count.sum()));
+        return counts;
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Object> consumer(Object[] args, int index) {
+        return index < args.length ? (Consumer<Object>) args[index] : null;
+    }
+
+    private void send(String route, String target, SimulatedMatch match, Supplier<?> result,
+                      Consumer<Object> success, Consumer<? super Throwable> failure) {
+        calls.increment();
+        callsByRoute.computeIfAbsent(route, key -> new LongAdder()).increment();
+
+        long now = System.currentTimeMillis();
+        long sendAt = buckets.computeIfAbsent(route + ':' + target, key -> new Bucket(ROUTE_LIMITS.getOrDefault(route, INTERACTION_LIMIT))).reserve(now);
+        if (sendAt > now) {
+            rateLimited.increment();
+            rateLimitWaitMillis.add(sendAt - now);
+        }
+
+        long shown = match != null && VISIBLE_ROUTES.contains(route) ? match.getSequence() : -1;
+        long delay = sendAt - now + latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        scheduler.schedule(() -> runAs(match, () -> {
+            if (shown >= 0) {
+                match.onShown(shown);
+            }
+            if (success != null) {
+                success.accept(result == null ? null : result.get());
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void runAs(SimulatedMatch match, Runnable task) {
+        CURRENT_MATCH.set(match);
+        try {
+            task.run();
+        } catch (Throwable t) {
+            callbackErrors.increment();
+            firstCallbackError.compareAndSet(null, t);
+        } finally {
+            CURRENT_MATCH.remove();
+        }
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args, Class<?> type) {
+        return switch (name) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> "Fake" + type.getSimpleName();
+        };
+    }
+
+    private Object defaultValue(Object proxy, Class<?> returnType, String target) {
+        if (returnType == void.class) {
+            return null;
+        } else if (returnType == boolean.class) {
+            return false;
+        } else if (returnType == long.class) {
+            return 0L;
+        } else if (returnType == int.class) {
+            return 0;
+        } else if (returnType.isPrimitive()) {
+            return returnType == double.class ? 0.0 : returnType == float.class ? 0.0f : (byte) 0;
+        } else if (returnType == String.class) {
+            return "";
+        } else if (returnType.isInstance(proxy)) {
+            return proxy;
+        } else if (returnType.isInterface()) {
+            return entity(new Class<?>[]{returnType}, target, Map.of());
+        }
+        return null;
+    }
+
+    /**
+     * A fixed window rate limit bucket. Requests beyond the limit are pushed into the next window with room.
+     */
+    private static final class Bucket {
+
+        private final long limit;
+        private final long windowMillis;
+        private long windowStart;
+        private long used;
+
+        Bucket(long[] limit) {
+            this.limit = limit[0];
+            this.windowMillis = limit[1];
+        }
+
+        /**
+         * Reserves a request in the bucket.
+         *
+         * @param now the current time in milliseconds
+         * @return the time the request may be sent at
+         */
+        synchronized long reserve(long now) {
+            if (now >= windowStart + windowMillis) {
+                windowStart = now;
+                used = 0;
+            }
+            if (used == limit) {
+                windowStart += windowMillis;
+                used = 0;
+            }
+            used++;
+            return Math.max(now, windowStart);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.simulation;
+
+import com.chalwk.bot.GatewayProfile;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
+import net.dv8tion.jda.internal.utils.config.MetaConfig;
+import net.dv8tion.jda.internal.utils.config.ThreadingConfig;
+import net.dv8tion.jda.internal.utils.config.flags.ConfigFlag;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the heap each {@link GatewayProfile} costs per guild, over a synthetic population of guilds.
+ * <p>
+ * Each profile configures a shard manager builder exactly as the bot does, and the intents, caches, member cache
+ * policy and chunking filter are read back from it. The guilds are then built offline by JDA's own entity builder,
+ * from the payloads the gateway would have sent over a session with those settings: the bot's own member, the members
+ * the guild create event carries (all of a small guild, the online ones of a large one, and only with the presence
+ * intent), every member if the guild is chunked, and the members seen in messages and interactions. JDA's member
+ * cache policy decides which of them are kept, just as it would online.
+ * <p>
+ * Guild sizes are spread log-uniformly between {@code --min-members} and {@code --max-members}, and the population
+ * is the same for every profile and every run with the same {@code --seed}. The heap is read after a full collection
+ * before and after building the guilds, on the same JDA instance.
+ * <p>
+ * Run with: {@code mvn -Psimulation verify -Dsim.main=com.chalwk.simulation.GuildFootprint
+ * -Dsim.args="--guilds 1000 --max-members 20000"}
+ */
+public final class GuildFootprint {
+
+    private static final long SELF_ID = 1;
+    private static final double ONLINE_FRACTION = 0.2;
+    private static final double ACTIVE_FRACTION = 0.05;
+    private static final String TIMESTAMP = "2024-01-01T00:00:00.000000+00:00";
+
+    private final Map<String, String> options;
+    private final int guildCount;
+    private final long seed;
+
+    private GuildFootprint(Map<String, String> options) {
+        this.options = options;
+        this.guildCount = (int) option("guilds", 1000);
+        this.seed = option("seed", 42);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        new GuildFootprint(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws ReflectiveOperationException, InterruptedException {
+        boolean messageGuesses = !"components".equalsIgnoreCase(options.getOrDefault("mode", "messages"));
+        System.out.printf("Building %d synthetic guilds of %d to %d members, seed %d, guessing by %s%n%n",
+                guildCount, option("min-members", 10), option("max-members", 10_000), seed,
+                messageGuesses ? "messages" : "components");
+        System.out.printf("%-8s %12s %16s %12s %14s%n", "Profile", "Members", "Cached members", "Heap (MiB)", "KiB per guild");
+
+        for (GatewayProfile profile : GatewayProfile.values()) {
+            measure(profile, messageGuesses);
+        }
+    }
+
+    private void measure(GatewayProfile profile, boolean messageGuesses) throws ReflectiveOperationException, InterruptedException {
+        DefaultShardManagerBuilder builder = profile.createBuilder("synthetic", messageGuesses);
+        EnumSet<GatewayIntent> intents = GatewayIntent.getIntents(this.<Integer>field(builder, "intents"));
+        EnumSet<CacheFlag> cacheFlags = field(builder, "cacheFlags");
+        ChunkingFilter chunkingFilter = field(builder, "chunkingFilter");
+        int largeThreshold = field(builder, "largeThreshold");
+
+        JDAImpl jda = new JDAImpl(new AuthorizationConfig("synthetic"), null, ThreadingConfig.getDefault(),
+                new MetaConfig(2048, new ConcurrentHashMap<>(), cacheFlags, EnumSet.noneOf(ConfigFlag.class)), new RestConfig()) {
+            @Override
+            public boolean isIntent(GatewayIntent intent) {
+                return intents.contains(intent);
+            }
+
+            @Override
+            public EnumSet<GatewayIntent> getGatewayIntents() {
+                return EnumSet.copyOf(intents);
+            }
+        };
+        jda.setMemberCachePolicy(this.<MemberCachePolicy>field(builder, "memberCachePolicy"));
+        jda.setSelfUser(jda.getEntityBuilder().createSelfUser(user(SELF_ID).put("verified", true).put("mfa_enabled", false)));
+        long before = usedHeap();
+
+        // The population and the session each have their own generator, so every profile sees the same guilds.
+        Random population = new Random(seed);
+        Random session = new Random(seed + 1);
+        long members = 0;
+        long nextID = 1_000_000;
+        for (long guildID = 1; guildID <= guildCount; guildID++) {
+            int size = memberCount(population);
+            members += size;
+            boolean sentInCreate = intents.contains(GatewayIntent.GUILD_PRESENCES);
+            boolean chunked = chunkingFilter.filter(guildID) && intents.contains(GatewayIntent.GUILD_MEMBERS);
+            jda.getEntityBuilder().createGuild(guildID, guild(guildID, size, nextID, population),
+                    members(size, nextID, largeThreshold, sentInCreate, chunked, session), size + 1);
+            nextID += size + 1000;
+        }
+
+        long cached = 0;
+        for (Guild guild : jda.getGuildCache()) {
+            cached += guild.getMemberCache().size();
+        }
+        long heap = usedHeap() - before;
+        Reference.reachabilityFence(jda);
+        System.out.printf("%-8s %12d %16d %12.1f %14.1f%n", profile, members, cached, heap / 1048576.0,
+                heap / 1024.0 / guildCount);
+    }
+
+    private int memberCount(Random random) {
+        double min = Math.log(option("min-members", 10));
+        double max = Math.log(option("max-members", 10_000));
+        return (int) Math.round(Math.exp(min + random.nextDouble() * (max - min)));
+    }
+
+    /**
+     * The guild create payload of a guild: its roles, channels, emojis, stickers and events, scaled with its size.
+     * The members are passed separately, as the guild setup does.
+     */
+    private static DataObject guild(long guildID, int size, long firstMemberID, Random random) {
+        long id = guildID * 100_000;
+        DataArray roles = DataArray.empty().add(role(guildID, "@everyone", 0));
+        for (int i = 1; i <= Math.min(50, 5 + size / 200); i++) {
+            roles.add(role(id + i, "role" + i, i));
+        }
+
+        DataArray channels = DataArray.empty();
+        int textChannels = Math.min(60, 8 + size / 500);
+        for (int i = 0; i < textChannels + 3; i++) {
+            DataArray overrides = DataArray.empty()
+                    .add(DataObject.empty().put("id", guildID).put("type", 0).put("allow", "0").put("deny", "2048"))
+                    .add(DataObject.empty().put("id", id + 1).put("type", 0).put("allow", "3072").put("deny", "0"))
+                    .add(DataObject.empty().put("id", firstMemberID + i % size).put("type", 1).put("allow", "8192").put("deny", "0"));
+            channels.add(DataObject.empty().put("id", id + 1000 + i).put("type", i < textChannels ? 0 : 2)
+                    .put("name", "channel" + i).put("position", i).put("topic", "Topic of channel " + i)
+                    .put("bitrate", 64000).put("user_limit", 0).put("permission_overwrites", overrides));
+        }
+
+        DataArray emojis = DataArray.empty();
+        for (int i = 0; i < 20; i++) {
+            emojis.add(DataObject.empty().put("id", id + 2000 + i).put("name", "emoji" + i).put("roles", DataArray.empty())
+                    .put("animated", false).put("available", true).put("managed", false).put("require_colons", true));
+        }
+        DataArray stickers = DataArray.empty();
+        for (int i = 0; i < 3; i++) {
+            stickers.add(DataObject.empty().put("id", id + 3000 + i).put("name", "sticker" + i).put("guild_id", guildID)
+                    .put("format_type", 1).put("type", 2).put("description", "A sticker").put("tags", "smile")
+                    .put("available", true));
+        }
+        DataArray events = DataArray.empty().add(DataObject.empty().put("id", id + 4000).put("guild_id", guildID)
+                .put("name", "Game night").put("description", "Weekly hangman").put("status", 1).put("entity_type", 2)
+                .put("channel_id", id + 1000 + textChannels).put("privacy_level", 2).put("user_count", 12)
+                .put("scheduled_start_time", "2030-01-01T20:00:00.000000+00:00"));
+
+        // A few members sit in the voice channels.
+        DataArray voiceStates = DataArray.empty();
+        for (int i = 0; i < Math.min(size, 5); i++) {
+            voiceStates.add(DataObject.empty().put("user_id", firstMemberID + random.nextInt(size))
+                    .put("channel_id", id + 1000 + textChannels).put("session_id", "session" + i).put("deaf", false)
+                    .put("mute", false).put("self_deaf", false).put("self_mute", false).put("self_stream", false)
+                    .put("self_video", false).put("suppress", false));
+        }
+
+        return DataObject.empty().put("id", guildID).put("name", "Guild " + guildID).put("owner_id", firstMemberID)
+                .put("member_count", size + 1).put("afk_timeout", 300).put("features", DataArray.empty())
+                .put("roles", roles).put("channels", channels).put("threads", DataArray.empty()).put("emojis", emojis)
+                .put("stickers", stickers).put("guild_scheduled_events", events).put("voice_states", voiceStates)
+                .put("presences", DataArray.empty());
+    }
+
+    /**
+     * The members the gateway sends for a guild over a session, by ID.
+     */
+    private static TLongObjectMap<DataObject> members(int size, long firstMemberID, int largeThreshold,
+                                                      boolean sentInCreate, boolean chunked, Random random) {
+        TLongObjectMap<DataObject> members = new TLongObjectHashMap<>();
+        members.put(SELF_ID, member(SELF_ID));
+        for (int i = 0; i < size; i++) {
+            boolean delivered = chunked
+                    || sentInCreate && (size <= largeThreshold || random.nextDouble() < ONLINE_FRACTION)
+                    || random.nextDouble() < ACTIVE_FRACTION;
+            if (delivered) {
+                members.put(firstMemberID + i, member(firstMemberID + i));
+            }
+        }
+        return members;
+    }
+
+    private static DataObject member(long userID) {
+        return DataObject.empty().put("user", user(userID)).put("roles", DataArray.empty()).put("joined_at", TIMESTAMP)
+                .put("nick", userID % 3 == 0 ? "nick" + userID : null).put("deaf", false).put("mute", false)
+                .put("flags", 0);
+    }
+
+    private static DataObject user(long userID) {
+        return DataObject.empty().put("id", userID).put("username", "user" + userID).put("discriminator", "0")
+                .put("global_name", "User " + userID).put("avatar", Long.toHexString(userID * 31)).put("bot", userID == SELF_ID);
+    }
+
+    private static DataObject role(long roleID, String name, int position) {
+        return DataObject.empty().put("id", roleID).put("name", name).put("color", 0).put("position", position)
+                .put("permissions", "104324673").put("hoist", false).put("managed", false).put("mentionable", false);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T field(DefaultShardManagerBuilder builder, String name) throws ReflectiveOperationException {
+        Field field = DefaultShardManagerBuilder.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (T) field.get(builder);
+    }
+
+    private long option(String name, long defaultValue) {
+        return Long.parseLong(options.getOrDefault(name, Long.toString(defaultValue)));
+    }
+}
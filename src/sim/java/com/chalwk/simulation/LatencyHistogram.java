@@ -0,0 +1,68 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.simulation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * A lock-free latency histogram with one bucket per millisecond. Latencies beyond the last bucket are counted in it.
+ */
+final class LatencyHistogram {
+
+    private final AtomicLongArray counts;
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a histogram.
+     *
+     * @param maxMillis the highest latency that gets its own bucket
+     */
+    LatencyHistogram(int maxMillis) {
+        this.counts = new AtomicLongArray(maxMillis + 1);
+    }
+
+    void record(long millis) {
+        counts.incrementAndGet((int) Math.max(0, Math.min(millis, counts.length() - 1)));
+        max.accumulate(millis);
+    }
+
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in milliseconds, or 0 if nothing was recorded
+     */
+    long getPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return counts.length() - 1;
+    }
+
+    String summary() {
+        return String.format("count=%d p50=%dms p90=%dms p99=%dms p99.9=%dms max=%dms",
+                getCount(), getPercentile(50), getPercentile(90), getPercentile(99), getPercentile(99.9), getMax());
+    }
+}
@@ -0,0 +1,422 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.simulation;
+
+import com.chalwk.CommandManager.CommandListener;
+import com.chalwk.Listeners.EventListeners;
+import com.chalwk.Listeners.GuessComponentListener;
+import com.chalwk.bot.BotInitializer;
+import com.chalwk.commands.accept;
+import com.chalwk.commands.cancel;
+import com.chalwk.commands.channel;
+import com.chalwk.commands.decline;
+import com.chalwk.commands.invite;
+import com.chalwk.game.Game;
+import com.chalwk.game.GameManager;
+import com.chalwk.game.GuessComponents;
+import com.chalwk.game.LayoutRegistry;
+import com.chalwk.metrics.BotMetrics;
+import com.chalwk.metrics.MetricsRegistry;
+import com.chalwk.util.EmbedEditCoalescer;
+import com.chalwk.util.Mailbox;
+import com.chalwk.util.MessageDeleteBatcher;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.unions.GuildMessageChannelUnion;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+import net.dv8tion.jda.api.interactions.components.selections.StringSelectInteraction;
+import net.dv8tion.jda.api.interactions.modals.ModalInteraction;
+import net.dv8tion.jda.api.interactions.modals.ModalMapping;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.MessageEditCallbackAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plays thousands of simulated players against the bot, headless and offline, and reports how it held up.
+ * <p>
+ * The bot runs unchanged: slash commands go through {@link CommandListener}, guesses through
+ * {@link EventListeners} or {@link GuessComponentListener}, and games through the real {@link GameManager}.
+ * Only Discord is simulated, by {@link FakeDiscord}, which adds network latency and enforces per-route rate
+ * limits. The report gives the latency percentiles of guesses and commands, throughput and the REST requests
+ * made per game. The simulator exits with a non-zero status if a callback failed, no game was completed or the
+ * guess p99 exceeded {@code --max-p99}. With {@code --metrics <file>}, the bot's own metrics are written to the file
+ * in the Prometheus text format when the run ends.
+ * <p>
+ * With {@code --pace impatient}, players don't wait for the board to show their guess before the next one, as they
+ * see their own message right away. Guesses then outrun rate limited embed edits, which the bot coalesces.
+ * <p>
+ * Run with: {@code mvn -Psimulation verify [-Dsim.args="--players 4000 --duration 60 --mode components"]}
+ */
+public final class LoadSimulator {
+
+    private static final String[] COMMANDS = {"invite", "accept", "decline", "channel", "cancel"};
+    private static final long FIRST_USER_ID = 10_000;
+    private static final Pattern PLAYER = Pattern.compile("player(\\d+)|<@(\\d+)>");
+
+    private final Map<String, String> options;
+    private final boolean components;
+    private final boolean impatient;
+    private final long thinkMillis;
+    private final FakeDiscord discord;
+    private final JDA jda;
+    private final Map<Long, Guild> guilds = new HashMap<>();
+    private final Map<Long, TextChannel> channels = new HashMap<>();
+    private final LatencyHistogram guessLatency = new LatencyHistogram(60_000);
+    private final LatencyHistogram commandLatency = new LatencyHistogram(60_000);
+    private final LongAdder guessesMade = new LongAdder();
+    private final LongAdder gamesCompleted = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+    private final List<SimulatedMatch> matches = new ArrayList<>();
+    private GameManager gameManager;
+    private CommandListener commandListener;
+    private EventListeners eventListeners;
+    private GuessComponentListener componentListener;
+    private volatile boolean running = true;
+
+    private LoadSimulator(Map<String, String> options) {
+        this.options = options;
+        this.components = "components".equalsIgnoreCase(options.getOrDefault("mode", "messages"));
+        this.impatient = !components && "impatient".equalsIgnoreCase(options.getOrDefault("pace", "patient"));
+        this.thinkMillis = option("think", 500);
+        this.discord = new FakeDiscord((int) option("threads", 8), option("latency", 50), option("jitter", 50));
+        this.jda = discord.entity(JDA.class, "jda", Map.of());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        System.exit(new LoadSimulator(options).run());
+    }
+
+    private int run() throws IOException, InterruptedException {
+        int players = (int) option("players", 2000);
+        int guildCount = (int) option("guilds", 20);
+        long durationSeconds = option("duration", 30);
+
+        System.setProperty("hangman.data.dir", Files.createTempDirectory("hangman-sim").toString());
+        System.setProperty("hangman.guess.mode", components ? "components" : "messages");
+        for (String command : COMMANDS) {
+            System.setProperty("hangman.cooldown." + command, "0");
+        }
+        setUp(guildCount);
+
+        for (int i = 0; i + 1 < players; i += 2) {
+            long guildID = 1 + (i / 2) % guildCount;
+            long channelID = channels.get(guildID).getIdLong();
+            matches.add(new SimulatedMatch(this, user(i), user(i + 1), guildID, channelID));
+        }
+
+        System.out.printf("Simulating %d %splayers in %d matches across %d guilds, guessing by %s, for %d s%n",
+                matches.size() * 2, impatient ? "impatient " : "", matches.size(), guildCount,
+                components ? "components" : "messages", durationSeconds);
+        long start = System.nanoTime();
+        matches.forEach(SimulatedMatch::start);
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        running = false;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        int status = report(elapsedSeconds);
+        discord.shutdown();
+        return status;
+    }
+
+    private void setUp(int guildCount) {
+        for (long guildID = 1; guildID <= guildCount; guildID++) {
+            long channelID = 1000 + guildID;
+            Map<String, Function<Object[], Object>> channelAnswers = new HashMap<>();
+            channelAnswers.put("getIdLong", args -> channelID);
+            channelAnswers.put("getId", args -> Long.toString(channelID));
+            channelAnswers.put("getAsMention", args -> "<#" + channelID + ">");
+            channelAnswers.put("getName", args -> "hangman");
+            channelAnswers.put("getType", args -> ChannelType.TEXT);
+            channelAnswers.put("getJDA", args -> jda);
+            channelAnswers.put("getGuild", args -> guilds.get(channelID - 1000));
+            TextChannel channel = (TextChannel) discord.entity(new Class<?>[]{TextChannel.class, MessageChannelUnion.class,
+                    GuildMessageChannelUnion.class}, Long.toString(channelID), channelAnswers, this::findMatch);
+
+            long id = guildID;
+            Guild guild = discord.entity(Guild.class, "guild", Map.of(
+                    "getIdLong", args -> id,
+                    "getId", args -> Long.toString(id),
+                    "getTextChannelById", args -> channel));
+            guilds.put(guildID, guild);
+            channels.put(guildID, channel);
+        }
+
+        BotInitializer.shardManager = discord.entity(ShardManager.class, "shards", Map.of(
+                "getTextChannelById", args -> channels.get(Long.parseLong(args[0].toString()) - 1000),
+                "getGuildById", args -> guilds.get(Long.parseLong(args[0].toString()))));
+        gameManager = new GameManager();
+        BotInitializer.gameManager = gameManager;
+        BotMetrics.registerGauges(gameManager);
+        for (TextChannel channel : channels.values()) {
+            gameManager.getChannelRegistry().setChannel(channel.getGuild().getIdLong(), channel.getIdLong());
+        }
+
+        commandListener = new CommandListener();
+        commandListener.add(new invite(gameManager));
+        commandListener.add(new accept(gameManager));
+        commandListener.add(new decline(gameManager));
+        commandListener.add(new channel(gameManager));
+        commandListener.add(new cancel(gameManager));
+        eventListeners = new EventListeners();
+        componentListener = new GuessComponentListener();
+    }
+
+    GameManager getGameManager() {
+        return gameManager;
+    }
+
+    FakeDiscord getDiscord() {
+        return discord;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Checks if players make their next guess without waiting for the board to show the last one. Only players
+     * guessing by messages can, since a component guess is only shown once its interaction is answered.
+     *
+     * @return true if players are impatient, false otherwise
+     */
+    boolean isImpatient() {
+        return impatient;
+    }
+
+    /**
+     * Gets how long a player thinks before their next step: between half and one and a half times {@code --think}.
+     *
+     * @return the think time in milliseconds
+     */
+    long nextThinkTime() {
+        return thinkMillis / 2 + ThreadLocalRandom.current().nextLong(thinkMillis + 1);
+    }
+
+    void recordStep(boolean guess, long latencyMillis) {
+        (guess ? guessLatency : commandLatency).record(latencyMillis);
+    }
+
+    void recordGameOver() {
+        gamesCompleted.increment();
+    }
+
+    void recordStall() {
+        stalls.increment();
+    }
+
+    void invite(SimulatedMatch match, User invitingPlayer, User invitedPlayer) {
+        // OptionMapping only takes JDA's own JDA and Guild implementations, and only needs them for mentions.
+        TLongObjectMap<Object> resolved = new TLongObjectHashMap<>();
+        resolved.put(invitedPlayer.getIdLong(), invitedPlayer);
+        int layout = ThreadLocalRandom.current().nextInt(LayoutRegistry.getPacks().size());
+        List<OptionMapping> options = List.of(
+                new OptionMapping(DataObject.empty().put("name", "opponent").put("type", OptionType.USER.getKey())
+                        .put("value", invitedPlayer.getId()), resolved, null, null),
+                new OptionMapping(DataObject.empty().put("name", "layout").put("type", OptionType.INTEGER.getKey())
+                        .put("value", layout), resolved, null, null));
+        slashCommand(match, "invite", invitingPlayer, options);
+    }
+
+    void accept(SimulatedMatch match, User invitedPlayer) {
+        slashCommand(match, "accept", invitedPlayer, List.of());
+    }
+
+    void guess(SimulatedMatch match, User player, Game game, String input) {
+        guessesMade.increment();
+        if (!components) {
+            chat(match, player, input);
+        } else if (input.length() == 1) {
+            Map<String, Function<Object[], Object>> answers = interactionAnswers(match, player);
+            answers.put("getComponentId", args -> GuessComponents.LETTERS_PREFIX + "0:" + game.getGameID());
+            answers.put("getValues", args -> List.of(input));
+            componentListener.onStringSelectInteraction(new StringSelectInteractionEvent(jda, 0,
+                    discord.entity(StringSelectInteraction.class, answers.get("getToken").apply(null).toString(), answers)));
+        } else {
+            Map<String, Function<Object[], Object>> answers = interactionAnswers(match, player);
+            answers.put("getModalId", args -> GuessComponents.WORD_MODAL_PREFIX + game.getGameID());
+            answers.put("getValues", args -> List.of(new ModalMapping(DataObject.empty()
+                    .put("custom_id", GuessComponents.WORD_INPUT_ID).put("type", 4).put("value", input))));
+            componentListener.onModalInteraction(new ModalInteractionEvent(jda, 0,
+                    discord.entity(ModalInteraction.class, answers.get("getToken").apply(null).toString(), answers)));
+        }
+    }
+
+    /**
+     * Sends a chat message to the match's channel. Only has an effect when guesses are made by messages.
+     */
+    void chat(SimulatedMatch match, User author, String content) {
+        if (components) {
+            return;
+        }
+        TextChannel channel = channels.get(match.getGuildID());
+        long messageID = discord.nextSnowflake();
+        Message message = discord.entity(Message.class, channel.getId(), Map.of(
+                "getIdLong", args -> messageID,
+                "getId", args -> Long.toString(messageID),
+                "getContentRaw", args -> content,
+                "getAuthor", args -> author,
+                "getChannel", args -> channel,
+                "getGuildChannel", args -> channel,
+                "getGuild", args -> guilds.get(match.getGuildID()),
+                "isFromGuild", args -> true,
+                "getJDA", args -> jda));
+        eventListeners.onMessageReceived(new MessageReceivedEvent(jda, 0, message));
+    }
+
+    private void slashCommand(SimulatedMatch match, String name, User user, List<OptionMapping> options) {
+        Map<String, Function<Object[], Object>> answers = interactionAnswers(match, user);
+        answers.put("getName", args -> name);
+        answers.put("getFullCommandName", args -> name);
+        answers.put("getSubcommandName", args -> null);
+        answers.put("getSubcommandGroup", args -> null);
+        answers.put("getOptions", args -> options);
+        commandListener.onSlashCommandInteraction(new SlashCommandInteractionEvent(jda, 0,
+                discord.entity(SlashCommandInteraction.class, answers.get("getToken").apply(null).toString(), answers)));
+    }
+
+    /**
+     * Creates the answers every interaction shares: its user, guild and channel, and replies that hand out a hook
+     * whose original message can be retrieved.
+     */
+    private Map<String, Function<Object[], Object>> interactionAnswers(SimulatedMatch match, User user) {
+        long interactionID = discord.nextSnowflake();
+        String token = "interaction-" + interactionID;
+        discord.setOwner(token, match);
+        InteractionHook hook = discord.entity(InteractionHook.class, token, Map.of(
+                "retrieveOriginal", args -> discord.request(RestAction.class, "retrieveOriginal", token, () -> {
+                    long messageID = discord.nextSnowflake();
+                    return discord.entity(Message.class, token, Map.of("getIdLong", a -> messageID));
+                })));
+
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getIdLong", args -> interactionID);
+        answers.put("getToken", args -> token);
+        answers.put("getUser", args -> user);
+        answers.put("getGuild", args -> guilds.get(match.getGuildID()));
+        answers.put("getChannel", args -> channels.get(match.getGuildID()));
+        answers.put("getChannelIdLong", args -> match.getChannelID());
+        answers.put("getJDA", args -> jda);
+        answers.put("getHook", args -> hook);
+        answers.put("isFromGuild", args -> true);
+        answers.put("deferReply", args -> discord.request(ReplyCallbackAction.class, "deferReply", token, () -> hook));
+        answers.put("deferEdit", args -> discord.request(MessageEditCallbackAction.class, "deferEdit", token, () -> hook));
+        return answers;
+    }
+
+    /**
+     * Finds the match a channel message is about, from the first player named in its text or embeds. Game events
+     * run on the bot's own threads, so a message sent to a shared channel can't be attributed by thread.
+     */
+    private SimulatedMatch findMatch(Object[] args) {
+        for (Object arg : args) {
+            String text = arg instanceof MessageEmbed embed ? embed.getDescription() : arg instanceof CharSequence chars ? chars.toString() : null;
+            Matcher matcher = text == null ? null : PLAYER.matcher(text);
+            if (matcher != null && matcher.find()) {
+                int index = matcher.group(1) != null ? Integer.parseInt(matcher.group(1)) : (int) (Long.parseLong(matcher.group(2)) - FIRST_USER_ID);
+                return index >= 0 && index / 2 < matches.size() ? matches.get(index / 2) : null;
+            }
+            if (arg instanceof MessageEmbed[] embeds && embeds.length > 0) {
+                return findMatch(embeds);
+            }
+            if (arg instanceof Collection<?> embeds) {
+                return findMatch(embeds.toArray());
+            }
+        }
+        return null;
+    }
+
+    private User user(int index) {
+        long id = FIRST_USER_ID + index;
+        return discord.entity(User.class, "user", Map.of(
+                "getIdLong", args -> id,
+                "getId", args -> Long.toString(id),
+                "getName", args -> "player" + index,
+                "getEffectiveName", args -> "player" + index,
+                "getAsMention", args -> "<@" + id + ">",
+                "isBot", args -> false));
+    }
+
+    private int report(double elapsedSeconds) throws IOException {
+        long guesses = guessesMade.sum();
+        long games = gamesCompleted.sum();
+        long calls = discord.getCalls();
+        long rateLimited = discord.getRateLimited();
+
+        System.out.println();
+        System.out.println("Guess latency:   " + guessLatency.summary());
+        System.out.println("Command latency: " + commandLatency.summary());
+        System.out.printf("Throughput:      %.1f guesses/s, %d games completed (%.1f/min)%n",
+                guesses / elapsedSeconds, games, games * 60 / elapsedSeconds);
+        System.out.printf("REST requests:   %d (%.1f per completed game), %d rate limited (avg wait %d ms)%n",
+                calls, games == 0 ? 0.0 : (double) calls / games, rateLimited,
+                rateLimited == 0 ? 0 : discord.getRateLimitWaitMillis() / rateLimited);
+        discord.getCallsByRoute().forEach((route, count) -> System.out.printf("  %-24s %d%n", route, count));
+        MessageDeleteBatcher batcher = MessageDeleteBatcher.getShared();
+        System.out.printf("Delete batcher:  %d flushes, %d queued, max flush %.2f ms%n",
+                batcher.getFlushCount(), batcher.getQueueDepth(), batcher.getMaxFlushNanos() / 1e6);
+        long submitted = EmbedEditCoalescer.getSubmittedCount();
+        long sent = EmbedEditCoalescer.getSentCount();
+        System.out.printf("Embed edits:     %d submitted, %d sent, %d coalesced%n", submitted, sent, submitted - sent);
+        System.out.printf("Game mailboxes:  %d events, max depth %d, %d queued%n",
+                Mailbox.getProcessedCount(), Mailbox.takeMaxDepth(), Mailbox.getTotalDepth());
+        System.out.printf("Stalled steps:   %d, callback errors: %d%n", stalls.sum(), discord.getCallbackErrors());
+        if (discord.getCallbackErrors() > 0) {
+            System.out.println("First callback error: " + discord.describeFirstCallbackError());
+        }
+        if (options.containsKey("metrics")) {
+            Files.writeString(Path.of(options.get("metrics")), MetricsRegistry.getShared().scrape());
+        }
+
+        long maxP99 = option("max-p99", 0);
+        if (discord.getCallbackErrors() > 0 || games == 0) {
+            System.out.println("FAILED: callbacks failed or no game was completed");
+            return 1;
+        }
+        if (maxP99 > 0 && guessLatency.getPercentile(99) > maxP99) {
+            System.out.println("FAILED: guess p99 is above " + maxP99 + " ms");
+            return 1;
+        }
+        return 0;
+    }
+
+    private long option(String name, long defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+}
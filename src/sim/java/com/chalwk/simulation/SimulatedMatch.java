@@ -0,0 +1,193 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.simulation;
+
+import com.chalwk.game.Game;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Two simulated players who invite each other, play a game to the end and start over, for as long as the
+ * simulation runs.
+ * <p>
+ * The match takes one step at a time: an invite, an accept or a guess. A step counts as done once Discord shows
+ * its result, that is when a request the bot sent on behalf of this match after the step began completes on a
+ * route that changes what the players see. The time that takes is the latency of the step. A step nothing is shown
+ * for within {@link #STALL_MILLIS} counts as stalled, and the match picks up from the state of its game.
+ * <p>
+ * Impatient players take their next guess once they have thought about it, whether or not the last one has been
+ * shown yet. A guess then only counts towards the latency if it is shown before the next one is made.
+ */
+final class SimulatedMatch {
+
+    private static final long STALL_MILLIS = 30_000;
+    private static final char[] LETTERS_BY_FREQUENCY = "etaoinsrhldcumfpgwybvkxjqz".toCharArray();
+
+    private final LoadSimulator simulator;
+    private final User first;
+    private final User second;
+    private final long channelID;
+    private final long guildID;
+
+    private Step step = Step.IDLE;
+    private long sequence;
+    private long stepStart;
+    private volatile Game game;
+
+    SimulatedMatch(LoadSimulator simulator, User first, User second, long guildID, long channelID) {
+        this.simulator = simulator;
+        this.first = first;
+        this.second = second;
+        this.guildID = guildID;
+        this.channelID = channelID;
+    }
+
+    long getChannelID() {
+        return channelID;
+    }
+
+    long getGuildID() {
+        return guildID;
+    }
+
+    /**
+     * Starts the match after a random delay, so matches don't all move in lockstep.
+     */
+    void start() {
+        later(this::invite);
+    }
+
+    /**
+     * Gets the number of the current step. Requests remember it when they are sent, and hand it back to
+     * {@link #onShown(long)} once they complete.
+     *
+     * @return the step number
+     */
+    synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Called when a request that changes what the players see completes.
+     *
+     * @param shown the number of the step that was current when the request was sent
+     */
+    void onShown(long shown) {
+        Step done;
+        long latencyMillis;
+        synchronized (this) {
+            if (step == Step.IDLE || shown < sequence) {
+                return;
+            }
+            done = step;
+            step = Step.IDLE;
+            latencyMillis = (System.nanoTime() - stepStart) / 1_000_000;
+        }
+        simulator.recordStep(done == Step.GUESS, latencyMillis);
+
+        switch (done) {
+            case INVITE -> later(this::accept);
+            case ACCEPT -> {
+                game = simulator.getGameManager().getGame(first.getIdLong());
+                later(game == null ? this::invite : this::guess);
+            }
+            case GUESS -> {
+                if (simulator.isImpatient()) {
+                    return;
+                }
+                if (isOver()) {
+                    simulator.recordGameOver();
+                    later(this::invite);
+                } else {
+                    later(this::guess);
+                }
+            }
+        }
+    }
+
+    private void invite() {
+        if (simulator.isRunning()) {
+            begin(Step.INVITE);
+            simulator.invite(this, first, second);
+        }
+    }
+
+    private void accept() {
+        begin(Step.ACCEPT);
+        simulator.accept(this, second);
+    }
+
+    private void guess() {
+        if (isOver()) {
+            if (simulator.isImpatient() && game != null) {
+                simulator.recordGameOver();
+            }
+            later(this::invite);
+            return;
+        }
+        User player = game.getWhosTurn().id() == first.getIdLong() ? first : second;
+        User waiting = player == first ? second : first;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(20) == 0) {
+            simulator.chat(this, waiting, "gg");
+        }
+
+        begin(Step.GUESS);
+        simulator.guess(this, player, game, chooseGuess(game, random));
+        if (simulator.isImpatient()) {
+            later(this::guess);
+        }
+    }
+
+    private boolean isOver() {
+        return game == null || simulator.getGameManager().getGame(first.getIdLong()) != game;
+    }
+
+    private static String chooseGuess(Game game, ThreadLocalRandom random) {
+        String word = game.getWordToGuess();
+        if (game.getEngine().getCorrectGuesses() * 10 >= word.length() * 7 && random.nextInt(4) == 0) {
+            return word;
+        }
+        char unguessed = 0;
+        for (char letter : LETTERS_BY_FREQUENCY) {
+            if ((game.getEngine().getGuessedLetters() & (1 << (letter - 'a'))) == 0) {
+                if (random.nextInt(3) != 0) {
+                    return String.valueOf(letter);
+                }
+                unguessed = letter;
+            }
+        }
+        return unguessed == 0 ? word : String.valueOf(unguessed);
+    }
+
+    private void begin(Step next) {
+        long started;
+        synchronized (this) {
+            step = next;
+            started = ++sequence;
+            stepStart = System.nanoTime();
+        }
+        simulator.getDiscord().schedule(this, () -> checkStalled(started), STALL_MILLIS);
+    }
+
+    private void checkStalled(long started) {
+        synchronized (this) {
+            if (step == Step.IDLE || sequence != started) {
+                return;
+            }
+            step = Step.IDLE;
+        }
+        simulator.recordStall();
+        game = simulator.getGameManager().getGame(first.getIdLong());
+        later(game == null ? this::invite : this::guess);
+    }
+
+    private void later(Runnable action) {
+        simulator.getDiscord().schedule(this, action, simulator.nextThinkTime());
+    }
+
+    private enum Step {
+        IDLE, INVITE, ACCEPT, GUESS
+    }
+}
@@ -0,0 +1,129 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.CommandManager;
+
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.interactions.command.CommandImpl;
+import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
+import net.dv8tion.jda.internal.utils.config.MetaConfig;
+import net.dv8tion.jda.internal.utils.config.ThreadingConfig;
+import net.dv8tion.jda.internal.utils.config.flags.ConfigFlag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Checks that the commands Discord returns hash the same as the definitions they were registered from, using
+ * command JSON in the shape Discord sends it, with the fields Discord fills in on its own.
+ */
+class CommandRegistrationCacheTest {
+
+    private static final long APPLICATION_ID = 1240000000000000000L;
+
+    /**
+     * The bot's commands as returned by a global command list request.
+     */
+    private static final String REGISTERED = """
+            [
+              {"id": "1250000000000000001", "application_id": "1240000000000000000", "version": "1250000000000000101",
+               "default_member_permissions": null, "type": 1, "name": "accept", "name_localizations": null,
+               "description": "Accept a pending invite", "description_localizations": null,
+               "dm_permission": true, "contexts": [0, 1, 2], "integration_types": [0], "nsfw": false},
+              {"id": "1250000000000000002", "application_id": "1240000000000000000", "version": "1250000000000000102",
+               "default_member_permissions": null, "type": 1, "name": "channel", "name_localizations": {},
+               "description": "Set or remove the channel for the Hangman bot to use (admins only)",
+               "description_localizations": {}, "dm_permission": true, "contexts": null, "integration_types": [0],
+               "nsfw": false,
+               "options": [
+                 {"type": 3, "name": "operation", "name_localizations": null,
+                  "description": "The type of operation to perform", "description_localizations": null,
+                  "required": true,
+                  "choices": [{"name": "add", "name_localizations": null, "value": "add"},
+                              {"name": "remove", "name_localizations": null, "value": "remove"}]},
+                 {"type": 7, "name": "channel", "name_localizations": null,
+                  "description": "The channel to set or remove", "description_localizations": null,
+                  "required": true}]},
+              {"id": "1250000000000000003", "application_id": "1240000000000000000", "version": "1250000000000000103",
+               "default_member_permissions": "0", "type": 1, "name": "invite", "name_localizations": null,
+               "description": "Invite a player to a game of Hangman", "description_localizations": null,
+               "dm_permission": false, "contexts": [0], "integration_types": [0, 1], "nsfw": false,
+               "options": [
+                 {"type": 6, "name": "opponent", "name_localizations": null, "description": "The user to invite",
+                  "description_localizations": null, "required": true},
+                 {"type": 4, "name": "layout", "name_localizations": null,
+                  "description": "The hangman layout you want to use", "description_localizations": null,
+                  "required": true,
+                  "choices": [{"name": "Gallows", "name_localizations": null, "value": 0},
+                              {"name": "Exercise", "name_localizations": null, "value": 1}]}]}
+            ]
+            """;
+
+    @Test
+    void registeredCommandsHashLikeTheirDefinitions() {
+        assertEquals(CommandRegistrationCache.hash(definitions("Invite a player to a game of Hangman")),
+                CommandRegistrationCache.hashRegistered(registered()));
+    }
+
+    @Test
+    void changedDefinitionsHashDifferently() {
+        assertNotEquals(CommandRegistrationCache.hash(definitions("Invite someone to a game of Hangman")),
+                CommandRegistrationCache.hashRegistered(registered()));
+    }
+
+    @Test
+    void hashIgnoresTheOrderOfCommands() {
+        List<CommandData> reversed = new ArrayList<>(definitions("Invite a player to a game of Hangman"));
+        Collections.reverse(reversed);
+        assertEquals(CommandRegistrationCache.hash(definitions("Invite a player to a game of Hangman")),
+                CommandRegistrationCache.hash(reversed));
+    }
+
+    private static List<CommandData> definitions(String inviteDescription) {
+        OptionData operation = new OptionData(OptionType.STRING, "operation", "The type of operation to perform", true)
+                .addChoice("add", "add")
+                .addChoice("remove", "remove");
+        OptionData layout = new OptionData(OptionType.INTEGER, "layout", "The hangman layout you want to use", true)
+                .addChoice("Gallows", 0)
+                .addChoice("Exercise", 1);
+        return List.of(
+                Commands.slash("accept", "Accept a pending invite"),
+                Commands.slash("channel", "Set or remove the channel for the Hangman bot to use (admins only)")
+                        .addOptions(operation, new OptionData(OptionType.CHANNEL, "channel", "The channel to set or remove", true)),
+                Commands.slash("invite", inviteDescription)
+                        .addOptions(new OptionData(OptionType.USER, "opponent", "The user to invite", true), layout));
+    }
+
+    /**
+     * Parses the registered commands the way JDA does, with an offline JDA instance that never connects.
+     */
+    private static List<Command> registered() {
+        JDAImpl jda = new JDAImpl(new AuthorizationConfig("offline"), null, ThreadingConfig.getDefault(),
+                new MetaConfig(2048, new ConcurrentHashMap<>(), EnumSet.noneOf(CacheFlag.class), EnumSet.noneOf(ConfigFlag.class)),
+                new RestConfig());
+        jda.setSelfUser(jda.getEntityBuilder().createSelfUser(DataObject.empty()
+                .put("id", APPLICATION_ID).put("username", "Hangman").put("discriminator", "0").put("avatar", null)
+                .put("bot", true).put("verified", true).put("mfa_enabled", false)));
+        DataArray array = DataArray.fromJson(REGISTERED);
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            commands.add(new CommandImpl(jda, null, array.getObject(i)));
+        }
+        return commands;
+    }
+}
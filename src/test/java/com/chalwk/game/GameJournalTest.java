@@ -0,0 +1,169 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import com.chalwk.bot.BotInitializer;
+import com.chalwk.util.Mailbox;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks what a restart recovers from the game journal: the running games, the game IDs handed out before the last
+ * compaction, and everything up to a torn or corrupt entry at the end of the journal.
+ */
+class GameJournalTest {
+
+    private static final long FIRST_PLAYER_ID = 1000;
+    private static final long CHANNEL_ID = 1;
+    private static final byte GAME_ENDED = 4;
+
+    @TempDir
+    Path dataDirectory;
+
+    @BeforeAll
+    static void stubDiscord() {
+        BotInitializer.shardManager = Stubs.of(ShardManager.class, Map.of());
+    }
+
+    @BeforeEach
+    void useDataDirectory() {
+        System.setProperty("hangman.data.dir", dataDirectory.toString());
+    }
+
+    @Test
+    void gameIDsContinueAfterTheirGamesAreCompactedAway() throws Exception {
+        GameManager manager = new GameManager();
+        List<Game> games = startGames(manager, 5);
+        for (Game game : games) {
+            game.post(game::onTimeUp);
+        }
+        awaitMailboxes();
+        assertTrue(manager.getJournal().awaitWritten(10_000));
+
+        // Reopening compacts the journal into a snapshot that holds no games at all.
+        GameJournal reopened = GameJournal.open(dataDirectory);
+        assertEquals(0, Files.size(dataDirectory.resolve("games.journal")));
+        assertTrue(reopened.getRecoveredGames().isEmpty());
+        assertEquals(6, reopened.nextGameID());
+        assertEquals(6, GameJournal.replay(dataDirectory).nextGameID());
+    }
+
+    @Test
+    void recoveryStopsAtATornEntry() throws Exception {
+        GameManager manager = new GameManager();
+        startGames(manager, 3);
+        assertTrue(manager.getJournal().awaitWritten(10_000));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream tail = new DataOutputStream(bytes);
+        tail.writeInt(100);
+        tail.write(new byte[10]);
+        appendToJournal(bytes.toByteArray());
+
+        GameJournal recovered = GameJournal.replay(dataDirectory);
+        assertEquals(Set.of(1L, 2L, 3L), gameIDs(recovered));
+        assertEquals(4, recovered.nextGameID());
+    }
+
+    @Test
+    void recoveryStopsAtAnEntryWithABadChecksum() throws Exception {
+        GameManager manager = new GameManager();
+        startGames(manager, 3);
+        assertTrue(manager.getJournal().awaitWritten(10_000));
+
+        // A well-formed entry ending game 1, whose checksum doesn't match.
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(GAME_ENDED);
+        out.writeLong(1);
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream tail = new DataOutputStream(bytes);
+        tail.writeInt(payload.size());
+        tail.write(payload.toByteArray());
+        tail.writeInt((int) crc.getValue() ^ 1);
+        appendToJournal(bytes.toByteArray());
+
+        GameJournal recovered = GameJournal.replay(dataDirectory);
+        assertEquals(Set.of(1L, 2L, 3L), gameIDs(recovered));
+    }
+
+    @Test
+    void tenThousandGamesRecoverWellUnderASecond() throws Exception {
+        GameManager manager = new GameManager();
+        startGames(manager, 10_000);
+        assertTrue(manager.getJournal().awaitWritten(30_000));
+
+        // Recover once from the journal, then again from the snapshot the next start compacts it into.
+        assertEquals(10_000, GameJournal.replay(dataDirectory).getRecoveredGames().size());
+        GameJournal.open(dataDirectory);
+
+        long start = System.nanoTime();
+        GameJournal recovered = GameJournal.replay(dataDirectory);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(10_000, recovered.getRecoveredGames().size());
+        assertEquals(10_001, recovered.nextGameID());
+        assertTrue(elapsedMillis < 1000, "recovery took " + elapsedMillis + " ms");
+    }
+
+    /**
+     * Invites and accepts games between pairs of players who aren't playing yet, and waits for them to start.
+     */
+    private static List<Game> startGames(GameManager manager, int count) throws InterruptedException {
+        long firstPlayer = FIRST_PLAYER_ID + 2L * manager.getActiveGameCount();
+        for (int i = 0; i < count; i++) {
+            long inviting = firstPlayer + 2L * i;
+            long invited = inviting + 1;
+            manager.invitePlayer(Stubs.user(inviting), Stubs.user(invited), 0, Stubs.command(inviting, CHANNEL_ID));
+            manager.acceptInvite(invited, Stubs.command(invited, CHANNEL_ID));
+        }
+        awaitMailboxes();
+        assertEquals(count, manager.getActiveGameCount());
+
+        Set<Game> games = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            games.add(manager.getGame(firstPlayer + 2L * i));
+        }
+        return List.copyOf(games);
+    }
+
+    private static Set<Long> gameIDs(GameJournal journal) {
+        Set<Long> ids = new HashSet<>();
+        for (GameJournal.GameRecord record : journal.getRecoveredGames()) {
+            ids.add(record.gameID);
+        }
+        return ids;
+    }
+
+    private void appendToJournal(byte[] bytes) throws IOException {
+        Files.write(dataDirectory.resolve("games.journal"), bytes, StandardOpenOption.APPEND);
+    }
+
+    private static void awaitMailboxes() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Mailbox.getTotalDepth() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "game mailboxes didn't drain");
+            Thread.sleep(1);
+        }
+    }
+}
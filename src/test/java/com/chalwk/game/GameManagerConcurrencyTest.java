@@ -0,0 +1,218 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import com.chalwk.bot.BotInitializer;
+import com.chalwk.util.ConcurrentLongMap;
+import com.chalwk.util.Mailbox;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives invites, accepts, declines, cancels and game timeouts for a small pool of players from many threads at
+ * once, then checks that the game manager's maps and its journal agree with each other.
+ */
+class GameManagerConcurrencyTest {
+
+    private static final long FIRST_PLAYER_ID = 1000;
+    private static final int PLAYERS = 200;
+    private static final long CHANNEL_ID = 1;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 2500;
+
+    @TempDir
+    static Path dataDirectory;
+
+    @BeforeAll
+    static void setUp() {
+        System.setProperty("hangman.data.dir", dataDirectory.toString());
+        BotInitializer.shardManager = Stubs.of(ShardManager.class, Map.of());
+    }
+
+    @Test
+    void concurrentInvitesAndAcceptsKeepTheStateConsistent() throws Exception {
+        GameManager manager = new GameManager();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int op = 0; op < OPERATIONS_PER_THREAD; op++) {
+                        playRandomOperation(manager);
+                    }
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+        awaitMailboxes();
+
+        assertTrue(manager.getJournal().nextGameID() > 1, "no game was ever created");
+
+        Set<Game> liveGames = checkMaps(manager);
+        checkJournal(manager, liveGames, pendingPairs(manager));
+
+        // Wind everything down: every journaled invite must end up closed and every game ended.
+        ConcurrentLongMap<GameInvite> sentInvites = field(manager, "sentInvites");
+        for (long player = FIRST_PLAYER_ID; player < FIRST_PLAYER_ID + PLAYERS; player++) {
+            if (sentInvites.containsKey(player)) {
+                assertNotNull(manager.cancelInvite(player));
+            }
+        }
+        for (Game game : liveGames) {
+            game.post(game::onTimeUp);
+        }
+        awaitMailboxes();
+
+        assertEquals(0, manager.getActiveGameCount());
+        assertEquals(0, manager.getPendingInviteCount());
+        assertEquals(0, sentInvites.size());
+        assertEquals(0, this.<Object>field(manager, "games").size());
+        checkJournal(manager, Set.of(), Set.of());
+    }
+
+    private static void playRandomOperation(GameManager manager) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long player = FIRST_PLAYER_ID + random.nextInt(PLAYERS);
+        long other = FIRST_PLAYER_ID + (player - FIRST_PLAYER_ID + 1 + random.nextInt(PLAYERS - 1)) % PLAYERS;
+        switch (random.nextInt(5)) {
+            case 0 -> manager.invitePlayer(Stubs.user(player), Stubs.user(other), 0, Stubs.command(player, CHANNEL_ID));
+            case 1 -> manager.acceptInvite(player, Stubs.command(player, CHANNEL_ID));
+            case 2 -> manager.declineInvite(player, Stubs.command(player, CHANNEL_ID));
+            case 3 -> manager.cancelInvite(player);
+            default -> {
+                Game game = manager.getGame(player);
+                if (game != null) {
+                    assertTrue(game.isPlayer(player));
+                    game.post(game::onTimeUp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that every booked player points at a game they play in, that no booking is left half made,
+     * and that pending and sent invites mirror each other.
+     *
+     * @return the running games
+     */
+    private Set<Game> checkMaps(GameManager manager) throws ReflectiveOperationException {
+        ConcurrentLongMap<Object> games = field(manager, "games");
+        ConcurrentLongMap<GameInvite> pendingInvites = field(manager, "pendingInvites");
+        ConcurrentLongMap<GameInvite> sentInvites = field(manager, "sentInvites");
+        Set<Game> liveGames = new HashSet<>();
+        int bookedPlayers = 0;
+        int invitedPlayers = 0;
+        int invitingPlayers = 0;
+        for (long player = FIRST_PLAYER_ID; player < FIRST_PLAYER_ID + PLAYERS; player++) {
+            Object booking = games.get(player);
+            if (booking != null) {
+                Game game = assertInstanceOf(Game.class, booking, "half-made booking of player " + player);
+                assertTrue(game.isPlayer(player));
+                assertFalse(game.isEnded(), "player " + player + " is booked into an ended game");
+                assertSame(game, games.get(game.getInvitingPlayer().id()));
+                assertSame(game, games.get(game.getInvitedPlayer().id()));
+                liveGames.add(game);
+                bookedPlayers++;
+            }
+            GameInvite received = pendingInvites.get(player);
+            if (received != null) {
+                assertEquals(GameInvite.State.PENDING, received.getState());
+                assertEquals(player, received.getInvitedPlayer().id());
+                assertSame(received, sentInvites.get(received.getInvitingPlayer().id()));
+                invitedPlayers++;
+            }
+            GameInvite sent = sentInvites.get(player);
+            if (sent != null) {
+                assertEquals(player, sent.getInvitingPlayer().id());
+                assertSame(sent, pendingInvites.get(sent.getInvitedPlayer().id()));
+                invitingPlayers++;
+            }
+        }
+        assertEquals(bookedPlayers, games.size());
+        assertEquals(liveGames.size(), manager.getActiveGameCount());
+        assertEquals(invitedPlayers, pendingInvites.size());
+        assertEquals(invitingPlayers, sentInvites.size());
+        return liveGames;
+    }
+
+    /**
+     * Checks that a restart would recover exactly the running games and pending invites, and that no player would
+     * come back in two games.
+     */
+    private static void checkJournal(GameManager manager, Set<Game> liveGames, Set<List<Long>> pendingInvites) throws Exception {
+        assertTrue(manager.getJournal().awaitWritten(10_000), "journal writer fell behind");
+        GameJournal recovered = GameJournal.replay(dataDirectory);
+
+        Set<Long> liveGameIDs = new HashSet<>();
+        for (Game game : liveGames) {
+            liveGameIDs.add(game.getGameID());
+        }
+        Set<Long> recoveredGames = new HashSet<>();
+        Set<Long> recoveredPlayers = new HashSet<>();
+        for (GameJournal.GameRecord record : recovered.getRecoveredGames()) {
+            recoveredGames.add(record.gameID);
+            assertTrue(recoveredPlayers.add(record.invitingPlayer.id()), "player in two recovered games");
+            assertTrue(recoveredPlayers.add(record.invitedPlayer.id()), "player in two recovered games");
+        }
+        assertEquals(liveGameIDs, recoveredGames);
+
+        Set<List<Long>> recoveredInvites = new HashSet<>();
+        for (GameJournal.InviteRecord record : recovered.getRecoveredInvites()) {
+            recoveredInvites.add(List.of(record.invitingPlayer().id(), record.invitedPlayer().id()));
+        }
+        assertEquals(pendingInvites, recoveredInvites);
+    }
+
+    private Set<List<Long>> pendingPairs(GameManager manager) throws ReflectiveOperationException {
+        ConcurrentLongMap<GameInvite> pendingInvites = field(manager, "pendingInvites");
+        Set<List<Long>> pairs = new HashSet<>();
+        for (long player = FIRST_PLAYER_ID; player < FIRST_PLAYER_ID + PLAYERS; player++) {
+            GameInvite invite = pendingInvites.get(player);
+            if (invite != null) {
+                pairs.add(List.of(invite.getInvitingPlayer().id(), player));
+            }
+        }
+        return pairs;
+    }
+
+    private static void awaitMailboxes() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Mailbox.getTotalDepth() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "game mailboxes didn't drain");
+            Thread.sleep(1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> ConcurrentLongMap<V> field(GameManager manager, String name) throws ReflectiveOperationException {
+        Field field = GameManager.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (ConcurrentLongMap<V>) field.get(manager);
+    }
+}
@@ -0,0 +1,157 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.chalwk.game.HangmanEngine.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the rules of the engine: winning by letters and by word, losing at the mistake limit, what counts as a
+ * mistake, and that engines played on different threads don't affect each other.
+ */
+class HangmanEngineTest {
+
+    private static final int MAX_MISTAKES = 6;
+
+    @Test
+    void revealingEveryLetterWins() {
+        HangmanEngine engine = new HangmanEngine("hello", MAX_MISTAKES, true);
+
+        assertEquals(HIT, engine.applyGuess("l"));
+        assertFalse(engine.isInvitingPlayersTurn());
+        assertEquals(2, engine.getCorrectGuesses());
+        assertEquals(MISS, engine.applyGuess("z"));
+        assertTrue(engine.isInvitingPlayersTurn());
+        assertEquals(HIT, engine.applyGuess("h"));
+        assertEquals(HIT, engine.applyGuess("e"));
+        assertEquals(WON, engine.applyGuess("o"));
+
+        assertTrue(engine.isOver());
+        assertEquals(1, engine.getMistakes());
+        // The inviting player made the winning guess and keeps the turn, and guesses after the end change nothing.
+        assertTrue(engine.isInvitingPlayersTurn());
+        assertEquals(OVER, engine.applyGuess("x"));
+        assertEquals(1, engine.getMistakes());
+    }
+
+    @Test
+    void theLastMistakeAllowedLoses() {
+        HangmanEngine engine = new HangmanEngine("hello", MAX_MISTAKES, true);
+
+        String misses = "abcdf";
+        for (int i = 0; i < misses.length(); i++) {
+            assertEquals(MISS, engine.applyGuess(misses.substring(i, i + 1)));
+        }
+        assertEquals(MAX_MISTAKES - 1, engine.getMistakes());
+        assertFalse(engine.isOver());
+
+        assertEquals(LOST, engine.applyGuess("g"));
+        assertTrue(engine.isOver());
+        assertEquals(MAX_MISTAKES, engine.getMistakes());
+        assertEquals(OVER, engine.applyGuess("h"));
+    }
+
+    @Test
+    void aWrongLetterGuessedAgainIsAnotherMistake() {
+        HangmanEngine engine = new HangmanEngine("hello", MAX_MISTAKES, true);
+
+        assertEquals(MISS, engine.applyGuess("z"));
+        assertEquals(MISS, engine.applyGuess("z"));
+        assertEquals(2, engine.getMistakes());
+
+        // A right letter guessed again is still a hit, and reveals nothing new.
+        assertEquals(HIT, engine.applyGuess("l"));
+        assertEquals(HIT, engine.applyGuess("l"));
+        assertEquals(2, engine.getCorrectGuesses());
+        assertEquals(2, engine.getMistakes());
+    }
+
+    @Test
+    void charactersOtherThanLettersAreRevealedUpFront() {
+        HangmanEngine engine = new HangmanEngine("ice-cream", MAX_MISTAKES, true);
+        assertEquals(1, engine.getCorrectGuesses());
+
+        // The hyphen is already shown, so guessing it is a mistake.
+        assertEquals(MISS, engine.applyGuess("-"));
+        assertEquals(1, engine.getMistakes());
+        assertEquals(0, engine.getGuessedLetters());
+
+        for (String letter : List.of("i", "c", "e", "r")) {
+            assertEquals(HIT, engine.applyGuess(letter));
+        }
+        assertEquals(HIT, engine.applyGuess("a"));
+        assertEquals(WON, engine.applyGuess("m"));
+    }
+
+    @Test
+    void guessingTheWholeWord() {
+        HangmanEngine engine = new HangmanEngine("hello", MAX_MISTAKES, true);
+
+        assertEquals(MISS, engine.applyGuess("help"));
+        assertEquals(1, engine.getMistakes());
+        assertEquals(0, engine.getGuessedLetters());
+        assertFalse(engine.isInvitingPlayersTurn());
+
+        assertEquals(WON, engine.applyGuess(new StringBuilder("hello")));
+        assertTrue(engine.isOver());
+        assertFalse(engine.isInvitingPlayersTurn());
+    }
+
+    @Test
+    void recoveredEnginesCountTheLettersAlreadyGuessed() {
+        int guessed = 1 << Guess.letterIndex('l') | 1 << Guess.letterIndex('z');
+        HangmanEngine engine = new HangmanEngine("hello", MAX_MISTAKES, false, guessed, 1);
+
+        assertEquals(2, engine.getCorrectGuesses());
+        assertEquals(1, engine.getMistakes());
+        assertFalse(engine.isInvitingPlayersTurn());
+        assertEquals(HIT, engine.applyGuess("h"));
+        assertEquals(HIT, engine.applyGuess("e"));
+        assertEquals(WON, engine.applyGuess("o"));
+    }
+
+    @Test
+    void enginesPlayedInParallelDontAffectEachOther() throws Exception {
+        String[] words = {"hello", "ice-cream", "banana", "quiz", "rhythm", "jukebox", "zebra", "mississippi"};
+        String guesses = "etaoinshrdlucmfwypvbgkjqxz";
+        int games = 2000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                String word = words[i % words.length];
+                int offset = i % guesses.length();
+                results.add(pool.submit(() -> play(word, guesses, offset)));
+            }
+            for (int i = 0; i < games; i++) {
+                String expected = play(words[i % words.length], guesses, i % guesses.length());
+                assertEquals(expected, results.get(i).get(), "game " + i);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays the letters of a guess order, starting at an offset, until the game is over, and describes how it went.
+     */
+    private static String play(String word, String guesses, int offset) {
+        HangmanEngine engine = new HangmanEngine(word, MAX_MISTAKES, true);
+        StringBuilder outcomes = new StringBuilder();
+        for (int i = 0; !engine.isOver(); i++) {
+            char letter = guesses.charAt((offset + i) % guesses.length());
+            outcomes.append(engine.applyGuess(String.valueOf(letter)).name().charAt(0));
+            Thread.yield();
+        }
+        return outcomes + " " + engine.getMistakes() + " " + engine.getCorrectGuesses() + " " + engine.getGuessedLetters();
+    }
+}
@@ -0,0 +1,102 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.game;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Inert stand-ins for JDA entities. A stub answers the methods it is given values for; every other method does
+ * nothing, and requests are never sent, so replies and their callbacks simply vanish.
+ * <p>
+ * The benchmark profile compiles the benchmarks together with the tests, so the game benchmarks use these stubs too.
+ */
+final class Stubs {
+
+    private static final JDA JDA_STUB = of(JDA.class, Map.of());
+    private static final ConcurrentMap<Long, User> USERS = new ConcurrentHashMap<>();
+
+    private Stubs() {
+    }
+
+    /**
+     * Creates a stub.
+     *
+     * @param type   the interface to stub
+     * @param values the values returned by method name
+     * @return the stub
+     */
+    static <T> T of(Class<T> type, Map<String, Object> values) {
+        return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (values.containsKey(name)) {
+                return values.get(name);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (name) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "Stub" + type.getSimpleName();
+                };
+            }
+            return defaultValue(proxy, method.getReturnType());
+        }));
+    }
+
+    /**
+     * Gets a stub user. The same ID always gives the same stub, so stubs are equal when their IDs are, like JDA users.
+     *
+     * @param id the ID of the user
+     * @return the user
+     */
+    static User user(long id) {
+        return USERS.computeIfAbsent(id, key -> of(User.class, Map.of(
+                "getIdLong", id,
+                "getId", Long.toString(id),
+                "getName", "player" + id,
+                "getAsMention", "<@" + id + ">")));
+    }
+
+    /**
+     * Creates a slash command event outside any guild.
+     *
+     * @param userID    the ID of the user who ran the command
+     * @param channelID the ID of the channel it was run in
+     * @return the event
+     */
+    static SlashCommandInteractionEvent command(long userID, long channelID) {
+        MessageChannelUnion channel = of(MessageChannelUnion.class, Map.of("getIdLong", channelID));
+        return new SlashCommandInteractionEvent(JDA_STUB, 0, of(SlashCommandInteraction.class, Map.of(
+                "getUser", user(userID),
+                "getChannel", channel)));
+    }
+
+    private static Object defaultValue(Object proxy, Class<?> returnType) {
+        if (returnType == void.class) {
+            return null;
+        } else if (returnType == boolean.class) {
+            return false;
+        } else if (returnType == long.class) {
+            return 0L;
+        } else if (returnType == int.class) {
+            return 0;
+        } else if (returnType.isPrimitive()) {
+            return returnType == double.class ? 0.0 : returnType == float.class ? 0.0f : (byte) 0;
+        } else if (returnType == String.class) {
+            return "";
+        } else if (returnType.isInstance(proxy)) {
+            return proxy;
+        } else if (returnType.isInterface()) {
+            return of(returnType, Map.of());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which bucket a duration lands in at the bucket bounds, and how a histogram is rendered when scraped.
+ */
+class HistogramTest {
+
+    @Test
+    void aDurationOnABoundLandsInThatBucket() {
+        for (int bucket = 0; bucket < Histogram.BOUNDS.length; bucket++) {
+            Histogram histogram = new Histogram();
+            histogram.record(Histogram.BOUNDS[bucket]);
+            assertEquals(1, histogram.getBucketCount(bucket), "bound of bucket " + bucket);
+        }
+    }
+
+    @Test
+    void aDurationJustAboveABoundLandsInTheNextBucket() {
+        for (int bucket = 0; bucket < Histogram.BOUNDS.length; bucket++) {
+            Histogram histogram = new Histogram();
+            histogram.record(Histogram.BOUNDS[bucket] + 1);
+            assertEquals(0, histogram.getBucketCount(bucket), "above the bound of bucket " + bucket);
+            assertEquals(1, histogram.getBucketCount(bucket + 1), "above the bound of bucket " + bucket);
+        }
+    }
+
+    @Test
+    void durationsOutsideTheBoundsLandInTheFirstAndLastBuckets() {
+        Histogram histogram = new Histogram();
+        histogram.record(0);
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(2, histogram.getBucketCount(0));
+        assertEquals(1, histogram.getBucketCount(Histogram.BOUNDS.length));
+    }
+
+    @Test
+    void scrapedBucketsAreCumulative() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("test_duration_seconds", "Test durations.", "kind", "a");
+        histogram.record(500_000L);
+        histogram.record(750_000L);
+        histogram.record(20_000_000_000L);
+
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("test_duration_seconds_bucket{kind=\"a\",le=\"5.0E-4\"} 1\n"), scrape);
+        assertTrue(scrape.contains("test_duration_seconds_bucket{kind=\"a\",le=\"0.001\"} 2\n"), scrape);
+        assertTrue(scrape.contains("test_duration_seconds_bucket{kind=\"a\",le=\"10.0\"} 2\n"), scrape);
+        assertTrue(scrape.contains("test_duration_seconds_bucket{kind=\"a\",le=\"+Inf\"} 3\n"), scrape);
+        assertTrue(scrape.contains("test_duration_seconds_count{kind=\"a\"} 3\n"), scrape);
+        assertTrue(scrape.contains("test_duration_seconds_sum{kind=\"a\"} 20.00125\n"), scrape);
+    }
+}
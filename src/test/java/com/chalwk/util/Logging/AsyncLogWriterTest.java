@@ -0,0 +1,73 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util.Logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks what happens to a record offered to a full buffer under each overflow policy. The writer thread is only
+ * started once the buffer is full, so the buffer fills up the same way every run.
+ */
+class AsyncLogWriterTest {
+
+    private static final int CAPACITY = 4;
+
+    @TempDir
+    Path logDirectory;
+
+    @Test
+    void aFullBufferDropsAndCountsRecordsWhenDropping() throws Exception {
+        AsyncLogWriter writer = new AsyncLogWriter(CAPACITY, false, false, 1024 * 1024, 1, logDirectory);
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(writer.offer(record(i)));
+        }
+        assertFalse(writer.offer(record(CAPACITY)));
+        assertFalse(writer.offer(record(CAPACITY + 1)));
+        assertEquals(2, writer.getDroppedCount());
+
+        writer.startThread();
+        writer.close();
+
+        List<String> lines = Files.readAllLines(logDirectory.resolve("hangman.log"));
+        assertEquals(CAPACITY + 1, lines.size(), lines::toString);
+        assertTrue(lines.get(0).endsWith("WARNING - 2 log records dropped because the buffer was full"), lines.get(0));
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(lines.get(i + 1).endsWith("INFO - record " + i), lines.get(i + 1));
+        }
+    }
+
+    @Test
+    void aFullBufferMakesTheCallerWaitWhenBlocking() throws Exception {
+        AsyncLogWriter writer = new AsyncLogWriter(CAPACITY, true, false, 1024 * 1024, 1, logDirectory);
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(writer.offer(record(i)));
+        }
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> writer.offer(record(CAPACITY)));
+        Thread.sleep(200);
+        assertFalse(blocked.isDone(), "the caller didn't wait for room");
+
+        writer.startThread();
+        assertTrue(blocked.get(10, TimeUnit.SECONDS));
+        writer.close();
+
+        assertEquals(0, writer.getDroppedCount());
+        List<String> lines = Files.readAllLines(logDirectory.resolve("hangman.log"));
+        assertEquals(CAPACITY + 1, lines.size(), lines::toString);
+        for (int i = 0; i <= CAPACITY; i++) {
+            assertTrue(lines.get(i).endsWith("INFO - record " + i), lines.get(i));
+        }
+    }
+
+    private static LogRecord record(int index) {
+        return new LogRecord(LogLevel.INFO, "record {}", new Object[]{index}, null);
+    }
+}
@@ -0,0 +1,43 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a mailbox keeps running its events after one of them fails.
+ */
+class MailboxTest {
+
+    @Test
+    void eventsAfterAFailedEventStillRun() {
+        List<Runnable> scheduled = new ArrayList<>();
+        Mailbox mailbox = new Mailbox(scheduled::add);
+        List<String> ran = new ArrayList<>();
+
+        mailbox.post(() -> ran.add("first"));
+        mailbox.post(() -> {
+            throw new IllegalStateException("failed");
+        });
+        mailbox.post(() -> {
+            throw new AssertionError("failed");
+        });
+        mailbox.post(() -> ran.add("last"));
+        assertEquals(1, scheduled.size());
+        scheduled.remove(0).run();
+
+        assertEquals(List.of("first", "last"), ran);
+        assertEquals(0, mailbox.getDepth());
+
+        // An empty mailbox schedules its next event again.
+        mailbox.post(() -> ran.add("again"));
+        assertEquals(1, scheduled.size());
+        scheduled.remove(0).run();
+        assertEquals(List.of("first", "last", "again"), ran);
+    }
+}
@@ -0,0 +1,100 @@
+/* Copyright (c) 2024 Jericho Crosby <jericho.crosby227@gmail.com>. Licensed under GNU General Public License v3.0.
+   See the LICENSE file or visit https://www.gnu.org/licenses/gpl-3.0.en.html for details. */
+package com.chalwk.util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a deck deals every word of the dictionary exactly once before starting over, that the decks of
+ * different guilds don't share their progress, and when decks are dropped.
+ */
+class WordDealerTest {
+
+    private static final long GUILD_ID = 1;
+    private static final long OTHER_GUILD_ID = 2;
+    private static final long CHANNEL_ID = 3;
+
+    private static Set<String> dictionary;
+
+    @BeforeAll
+    static void loadDictionary() {
+        WordList.load();
+        dictionary = new HashSet<>();
+        for (int i = 0; i < WordList.getWordCount(); i++) {
+            dictionary.add(WordList.getWord(i));
+        }
+        assertEquals(WordList.getWordCount(), dictionary.size(), "the dictionary has duplicate words");
+    }
+
+    @Test
+    void aDeckDealsEveryWordOnceAndThenStartsOver() {
+        WordDealer dealer = new WordDealer();
+
+        assertEquals(dictionary, dealCycle(dealer, GUILD_ID));
+        assertEquals(dictionary, dealCycle(dealer, GUILD_ID));
+    }
+
+    @Test
+    void decksOfDifferentGuildsAreDealtIndependently() {
+        WordDealer dealer = new WordDealer();
+        int half = dictionary.size() / 2;
+
+        Set<String> dealt = new HashSet<>();
+        for (int i = 0; i < half; i++) {
+            assertTrue(dealt.add(dealer.deal(GUILD_ID, CHANNEL_ID)));
+        }
+        assertEquals(dictionary, dealCycle(dealer, OTHER_GUILD_ID));
+        for (int i = half; i < dictionary.size(); i++) {
+            assertTrue(dealt.add(dealer.deal(GUILD_ID, CHANNEL_ID)));
+        }
+        assertEquals(dictionary, dealt);
+    }
+
+    @Test
+    void gamesOutsideAGuildAreDealtFromTheirChannelsDeck() {
+        WordDealer dealer = new WordDealer();
+
+        assertEquals(dictionary, dealCycle(dealer, 0, CHANNEL_ID));
+        assertEquals(1, dealer.getDeckCount());
+    }
+
+    @Test
+    void decksAreDroppedWhenTheirGuildIsLeftOrTheirChannelIsIdle() {
+        WordDealer dealer = new WordDealer();
+        dealer.deal(GUILD_ID, CHANNEL_ID);
+        dealer.deal(0, CHANNEL_ID);
+        assertEquals(2, dealer.getDeckCount());
+
+        dealer.discardGuildDeck(GUILD_ID);
+        assertEquals(1, dealer.getDeckCount());
+
+        dealer.sweep(System.nanoTime());
+        assertEquals(1, dealer.getDeckCount());
+        dealer.sweep(System.nanoTime() + TimeUnit.HOURS.toNanos(2));
+        assertEquals(0, dealer.getDeckCount());
+    }
+
+    /**
+     * Deals as many words as the dictionary has from a guild's deck, failing on the first word dealt twice.
+     */
+    private static Set<String> dealCycle(WordDealer dealer, long guildID) {
+        return dealCycle(dealer, guildID, CHANNEL_ID);
+    }
+
+    private static Set<String> dealCycle(WordDealer dealer, long guildID, long channelID) {
+        Set<String> dealt = new HashSet<>();
+        for (int i = 0; i < dictionary.size(); i++) {
+            String word = dealer.deal(guildID, channelID);
+            assertTrue(dealt.add(word), () -> word + " was dealt twice");
+        }
+        return dealt;
+    }
+}